@@ -0,0 +1,85 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Generating all four successors of a position: one move per direction against the combined afterstate pass.
+// The bitboard methods only run on 4x4.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AfterstateBenchmark {
+
+   private static final Direction[] DIRECTIONS = Direction.values();
+
+   @Param({ "4", "8" })
+   private int sidelength;
+
+   private Board board;
+   private Board scratch;
+   private byte[] afterstates;
+   private long[] rewards;
+   private long bits;
+   private long[] bitAfterstates;
+
+   @Setup
+   public void setup() {
+      board = Boards.randomBoard(sidelength, 0.6, 2048);
+      scratch = new Board(sidelength);
+      afterstates = new byte[DIRECTIONS.length * sidelength * sidelength];
+      rewards = new long[DIRECTIONS.length];
+      bits = sidelength == BitBoard.SIDELENGTH ? BitBoard.fromBoard(board).getBits() : 0L;
+      bitAfterstates = new long[DIRECTIONS.length];
+   }
+
+   @Benchmark
+   public long boardCopyAndMove() {
+      long sum = 0;
+      for (Direction direction : DIRECTIONS) {
+         scratch.copyFrom(board);
+         if (scratch.move(direction))
+            sum += scratch.getScore() + scratch.getZobristHash();
+      }
+      return sum;
+   }
+
+   @Benchmark
+   public long boardAfterstates() {
+      return board.afterstates(afterstates, rewards) + rewards[0] + afterstates[afterstates.length - 1];
+   }
+
+   @Benchmark
+   public long bitBoardMoves() {
+      long sum = 0;
+      for (Direction direction : DIRECTIONS) {
+         long after = BitBoard.move(bits, direction);
+         if (after != bits)
+            sum += after;
+      }
+      return sum;
+   }
+
+   @Benchmark
+   public long bitBoardAfterstates() {
+      return BitBoard.afterstates(bits, bitAfterstates, rewards, 0) + bitAfterstates[0] + bitAfterstates[3];
+   }
+
+}
@@ -0,0 +1,85 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.BoardBatch;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// One operation steps every game once with a random move, restarting the games that end.
+// Divide the score by games for the cost of a single step.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+   @Param({ "64", "4096" })
+   private int games;
+
+   @Param({ "4", "8" })
+   private int sidelength;
+
+   private SplittableRandom random;
+   private SpawnSource spawnSource;
+   private Direction[] directions;
+   private boolean[] gameOver;
+   private BoardBatch batch;
+   private Board[] boards;
+
+   @Setup
+   public void setup() {
+      random = new SplittableRandom(2048);
+      spawnSource = SpawnSource.of(random);
+      directions = new Direction[games];
+      gameOver = new boolean[games];
+      batch = new BoardBatch(games, sidelength, spawnSource);
+      boards = new Board[games];
+      for (int game = 0; game < games; game++) {
+         boards[game] = new Board(sidelength, spawnSource);
+      }
+   }
+
+   @Benchmark
+   public boolean[] batch() {
+      for (int game = 0; game < games; game++) {
+         directions[game] = Direction.values()[random.nextInt(4)];
+      }
+      batch.step(directions, null, null, gameOver);
+      for (int game = 0; game < games; game++) {
+         if (gameOver[game])
+            batch.reset(game);
+      }
+      return gameOver;
+   }
+
+   @Benchmark
+   public boolean[] boards() {
+      for (int game = 0; game < games; game++) {
+         directions[game] = Direction.values()[random.nextInt(4)];
+      }
+      for (int game = 0; game < games; game++) {
+         gameOver[game] = !boards[game].update(directions[game]);
+         if (gameOver[game])
+            boards[game] = new Board(sidelength, spawnSource);
+      }
+      return gameOver;
+   }
+
+}
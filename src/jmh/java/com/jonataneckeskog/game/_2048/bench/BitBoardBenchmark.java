@@ -0,0 +1,79 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// The 4x4 bitboard counterpart of MoveBenchmark and GameBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitBoardBenchmark {
+
+   private static final Direction[] DIRECTIONS = Direction.values();
+
+   @Param({ "0.25", "0.5", "0.9" })
+   private double fill;
+
+   @Param({ "UP", "DOWN", "LEFT", "RIGHT" })
+   private Direction direction;
+
+   private long board;
+   private SplittableRandom random;
+   private SpawnSource spawnSource;
+
+   @Setup
+   public void setup() {
+      board = BitBoard.fromBoard(Boards.randomBoard(BitBoard.SIDELENGTH, fill, 2048)).getBits();
+      random = new SplittableRandom(2048);
+      spawnSource = SpawnSource.of(random);
+   }
+
+   @Benchmark
+   public long move() {
+      return BitBoard.move(board, direction);
+   }
+
+   @Benchmark
+   public boolean isGameOver() {
+      return BitBoard.isGameOver(board);
+   }
+
+   @Benchmark
+   public long spawn() {
+      return BitBoard.spawn(board, spawnSource);
+   }
+
+   @Benchmark
+   @OutputTimeUnit(TimeUnit.MICROSECONDS)
+   public int randomGame() {
+      BitBoard game = new BitBoard(spawnSource);
+      int moves = 0;
+      while (!game.isGameOver()) {
+         if (game.move(DIRECTIONS[random.nextInt(DIRECTIONS.length)])) {
+            game.fillRandomEmptyCell();
+            moves++;
+         }
+      }
+      return moves;
+   }
+
+}
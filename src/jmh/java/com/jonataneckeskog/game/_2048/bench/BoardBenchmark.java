@@ -0,0 +1,54 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.game.Board;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+   @Param({ "4", "5", "8" })
+   private int sidelength;
+
+   @Param({ "0.25", "0.9" })
+   private double fill;
+
+   private String boardString;
+   private Board board;
+   private Board equalBoard;
+
+   @Setup
+   public void setup() {
+      board = Boards.randomBoard(sidelength, fill, 2048);
+      boardString = Boards.toBoardString(board);
+      equalBoard = Board.buildFromString(boardString);
+   }
+
+   @Benchmark
+   public Board buildFromString() {
+      return Board.buildFromString(boardString);
+   }
+
+   @Benchmark
+   public boolean equals() {
+      return board.equals(equalBoard);
+   }
+
+}
@@ -0,0 +1,76 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.SplittableRandom;
+
+import com.jonataneckeskog.game._2048.game.Board;
+
+// Deterministic board fixtures shared by the benchmarks
+final class Boards {
+
+   private Boards() {
+   }
+
+   // Roughly the given fraction of cells filled with tiles from 2 to 1024
+   static Board randomBoard(int sidelength, double fill, long seed) {
+      SplittableRandom random = new SplittableRandom(seed);
+      int[] exponents = new int[sidelength * sidelength];
+      for (int i = 0; i < exponents.length; i++) {
+         if (random.nextDouble() < fill)
+            exponents[i] = 1 + random.nextInt(10);
+      }
+      return build(exponents);
+   }
+
+   // Full board where no two neighbours are equal, so isGameOver has to scan every pair
+   static Board lockedBoard(int sidelength) {
+      int[] exponents = new int[sidelength * sidelength];
+      for (int row = 0; row < sidelength; row++) {
+         for (int column = 0; column < sidelength; column++) {
+            exponents[row * sidelength + column] = 1 + (row + column) % 2;
+         }
+      }
+      return build(exponents);
+   }
+
+   // Locked board whose only legal move is a merge in the last two cells
+   static Board lastPairMergeableBoard(int sidelength) {
+      int[] exponents = exponents(lockedBoard(sidelength));
+      exponents[exponents.length - 1] = exponents[exponents.length - 2];
+      return build(exponents);
+   }
+
+   // Locked board with a single empty cell in the last position
+   static Board nearFullBoard(int sidelength) {
+      int[] exponents = exponents(lockedBoard(sidelength));
+      exponents[exponents.length - 1] = 0;
+      return build(exponents);
+   }
+
+   static String toBoardString(Board board) {
+      StringBuilder builder = new StringBuilder();
+      board.forEachExponent((row, column, exponent) -> {
+         if (builder.length() > 0)
+            builder.append(',');
+         builder.append(exponent);
+      });
+      return builder.toString();
+   }
+
+   private static int[] exponents(Board board) {
+      int sidelength = board.getSidelength();
+      int[] exponents = new int[sidelength * sidelength];
+      board.forEachExponent((row, column, exponent) -> exponents[row * sidelength + column] = exponent);
+      return exponents;
+   }
+
+   private static Board build(int[] exponents) {
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < exponents.length; i++) {
+         if (i > 0)
+            builder.append(',');
+         builder.append(exponents[i]);
+      }
+      return Board.buildFromString(builder.toString());
+   }
+
+}
@@ -0,0 +1,68 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.ai.Heuristic;
+import com.jonataneckeskog.game._2048.ai.NTupleNetwork;
+import com.jonataneckeskog.game._2048.game.BitBoard;
+
+// One operation evaluates BOARDS random mid-game positions, so cache misses in the large n-tuple tables show up
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EvaluatorBenchmark {
+
+   private static final int BOARDS = 1024;
+
+   private long[] boards;
+   private Heuristic heuristic;
+   private NTupleNetwork network;
+
+   @Setup
+   public void setup() {
+      boards = new long[BOARDS];
+      for (int i = 0; i < BOARDS; i++) {
+         boards[i] = BitBoard.fromBoard(Boards.randomBoard(BitBoard.SIDELENGTH, 0.6, i)).getBits();
+      }
+      heuristic = new Heuristic();
+      network = new NTupleNetwork(NTupleNetwork.DEFAULT_TUPLES);
+      SplittableRandom random = new SplittableRandom(2048);
+      for (int i = 0; i < network.size(); i++) {
+         network.setWeight(i, (float) random.nextDouble());
+      }
+   }
+
+   @Benchmark
+   public double heuristic() {
+      double sum = 0;
+      for (long board : boards) {
+         sum += heuristic.evaluate(board);
+      }
+      return sum;
+   }
+
+   @Benchmark
+   public double nTuple() {
+      double sum = 0;
+      for (long board : boards) {
+         sum += network.evaluate(board);
+      }
+      return sum;
+   }
+
+}
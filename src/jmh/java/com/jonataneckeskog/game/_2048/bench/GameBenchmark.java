@@ -0,0 +1,58 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.ai.RandomPolicy;
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// One operation is a complete random-play game
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+
+   @Param({ "4", "5", "8" })
+   private int sidelength;
+
+   private SpawnSource spawnSource;
+   private RandomPolicy policy;
+
+   @Setup
+   public void setup() {
+      SplittableRandom random = new SplittableRandom(2048);
+      spawnSource = SpawnSource.of(random);
+      policy = new RandomPolicy(random);
+   }
+
+   @Benchmark
+   public long randomGame() {
+      Board board = new Board(sidelength, spawnSource);
+      boolean running = true;
+      while (running) {
+         Direction direction = policy.chooseMove(board);
+         if (direction == null)
+            break;
+         running = board.update(direction);
+      }
+      return board.getScore();
+   }
+
+}
@@ -0,0 +1,51 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.game.Board;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameOverBenchmark {
+
+   @Param({ "4", "5", "8" })
+   private int sidelength;
+
+   // locked: full without merges, lastPair: full with one merge at the end, nearFull: one empty cell
+   @Param({ "locked", "lastPair", "nearFull" })
+   private String state;
+
+   private Board board;
+
+   @Setup
+   public void setup() {
+      board = switch (state) {
+         case "locked" -> Boards.lockedBoard(sidelength);
+         case "lastPair" -> Boards.lastPairMergeableBoard(sidelength);
+         case "nearFull" -> Boards.nearFullBoard(sidelength);
+         default -> throw new IllegalArgumentException("Unknown state: " + state);
+      };
+   }
+
+   @Benchmark
+   public boolean isGameOver() {
+      return board.isGameOver();
+   }
+
+}
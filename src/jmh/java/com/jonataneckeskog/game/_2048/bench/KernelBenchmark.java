@@ -0,0 +1,60 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.MoveKernel;
+
+// Whole-grid moves on large boards; "best" is only vectorized in a jar built with -Pjmh,vector
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class KernelBenchmark {
+
+   @Param({ "16", "32" })
+   private int sidelength;
+
+   @Param({ "0.5", "0.9" })
+   private double fill;
+
+   @Param({ "UP", "LEFT" })
+   private Direction direction;
+
+   @Param({ "scalar", "best" })
+   private String kernelName;
+
+   private MoveKernel kernel;
+   private byte[] tiles;
+   private byte[] out;
+
+   @Setup
+   public void setup() {
+      kernel = kernelName.equals("scalar") ? MoveKernel.scalar() : MoveKernel.best();
+      Board board = Boards.randomBoard(sidelength, fill, 2048);
+      tiles = new byte[sidelength * sidelength];
+      board.forEachExponent((row, column, exponent) -> tiles[row * sidelength + column] = (byte) exponent);
+      out = new byte[tiles.length];
+   }
+
+   @Benchmark
+   public long move() {
+      return kernel.move(tiles, sidelength, direction, out);
+   }
+
+}
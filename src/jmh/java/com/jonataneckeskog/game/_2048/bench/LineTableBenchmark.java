@@ -0,0 +1,82 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// One operation restores the board and makes all four moves. The tabled fork maps the line tables from
+// target/line-tables.bin, generating them on its first run, so the two scores compare lookups with slideLine.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LineTableBenchmark {
+
+   @Param({ "3", "4", "6" })
+   private int sidelength;
+
+   @Param({ "0.5", "0.9" })
+   private double fill;
+
+   private Board template;
+   private Board board;
+   private byte[] afterstates;
+   private final long[] rewards = new long[Direction.values().length];
+
+   @Setup
+   public void setup() {
+      template = Boards.randomBoard(sidelength, fill, 2048);
+      board = Board.empty(sidelength, SpawnSource.seeded(1));
+      afterstates = new byte[Direction.values().length * sidelength * sidelength];
+   }
+
+   @Benchmark
+   @Fork(1)
+   public long computed() {
+      return moves();
+   }
+
+   @Benchmark
+   @Fork(value = 1, jvmArgsAppend = "-Dgame2048.lineTables=target/line-tables.bin")
+   public long tabled() {
+      return moves();
+   }
+
+   @Benchmark
+   @Fork(1)
+   public int afterstatesComputed() {
+      return template.afterstates(afterstates, rewards);
+   }
+
+   @Benchmark
+   @Fork(value = 1, jvmArgsAppend = "-Dgame2048.lineTables=target/line-tables.bin")
+   public int afterstatesTabled() {
+      return template.afterstates(afterstates, rewards);
+   }
+
+   private long moves() {
+      long score = 0;
+      for (Direction direction : Direction.values()) {
+         board.copyFrom(template);
+         board.move(direction);
+         score += board.getScore();
+      }
+      return score;
+   }
+
+}
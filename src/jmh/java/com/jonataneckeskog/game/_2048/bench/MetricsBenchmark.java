@@ -0,0 +1,64 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// One operation is a single random update, restarting the game when it ends. The instrumented fork runs with
+// -Dgame2048.metrics=true so the two scores give the overhead of the counters and sampled timers.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsBenchmark {
+
+   @Param({ "4", "8" })
+   private int sidelength;
+
+   private SplittableRandom random;
+   private SpawnSource spawnSource;
+   private Board board;
+
+   @Setup
+   public void setup() {
+      random = new SplittableRandom(2048);
+      spawnSource = SpawnSource.of(random);
+      board = new Board(sidelength, spawnSource);
+   }
+
+   @Benchmark
+   @Fork(1)
+   public boolean plain() {
+      return update();
+   }
+
+   @Benchmark
+   @Fork(value = 1, jvmArgsAppend = "-Dgame2048.metrics=true")
+   public boolean instrumented() {
+      return update();
+   }
+
+   private boolean update() {
+      boolean running = board.update(Direction.values()[random.nextInt(4)]);
+      if (!running)
+         board = new Board(sidelength, spawnSource);
+      return running;
+   }
+
+}
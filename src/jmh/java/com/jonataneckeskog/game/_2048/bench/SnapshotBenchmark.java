@@ -0,0 +1,61 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.BoardSnapshot;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Taking and restoring a snapshot against the move it would undo
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+   @Param({ "4", "16" })
+   private int sidelength;
+
+   private Board original;
+   private Board board;
+   private BoardSnapshot snapshot;
+
+   @Setup
+   public void setup() {
+      original = Boards.randomBoard(sidelength, 0.6, 2048);
+      board = Boards.randomBoard(sidelength, 0.6, 2048);
+      snapshot = original.snapshot();
+   }
+
+   @Benchmark
+   public BoardSnapshot snapshot() {
+      return board.snapshot();
+   }
+
+   @Benchmark
+   public Board restore() {
+      board.restore(snapshot);
+      return board;
+   }
+
+   @Benchmark
+   public boolean move() {
+      board.copyFrom(original);
+      return board.move(Direction.LEFT);
+   }
+
+}
@@ -0,0 +1,51 @@
+package com.jonataneckeskog.game._2048.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// Restores the board before each spawn; compare with MoveBenchmark.copy
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnBenchmark {
+
+   @Param({ "4", "5", "8" })
+   private int sidelength;
+
+   @Param({ "0.0", "0.5", "0.9" })
+   private double fill;
+
+   private Board template;
+   private Board board;
+
+   @Setup
+   public void setup() {
+      template = Boards.randomBoard(sidelength, fill, 2048);
+      board = Board.empty(sidelength, SpawnSource.seeded(1));
+   }
+
+   @Benchmark
+   public int fillRandomEmptyCell() {
+      board.copyFrom(template);
+      board.fillRandomEmptyCell();
+      return board.getNumberOfEmptyCells();
+   }
+
+}
@@ -1,9 +1,33 @@
 package com.jonataneckeskog.game._2048;
 
+import java.util.SplittableRandom;
+
+import com.jonataneckeskog.game._2048.ai.Policy;
 import com.jonataneckeskog.game._2048.gui.GameWindow;
 
+// Usage: Main [--size N] [--autoplay random|greedy|expectimax|montecarlo] [--depth D]
 public class Main {
     public static void main(String[] args) {
-        GameWindow.start();
+        int sidelength = 4;
+        String autoplay = null;
+        int depth = 2;
+
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            switch (args[i]) {
+                case "--size" -> sidelength = Integer.parseInt(args[++i]);
+                case "--autoplay" -> autoplay = args[++i];
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        if (autoplay == null) {
+            GameWindow.start(sidelength);
+        } else {
+            Policy.validate(autoplay, sidelength);
+            GameWindow.autoplay(sidelength, Policy.create(autoplay, new SplittableRandom(), depth));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,169 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+// Bounded search value cache meant to be shared by every solver in a run. Entries live in 8-way sets and a
+// CLOCK hand per set picks the victim, so recently used boards survive while stale games age out.
+public class EvaluationCache {
+
+   private static final int WAYS = 8;
+   private static final int STRIPES = 256;
+
+   private static final byte EMPTY = 0;
+   private static final byte PRESENT = 1;
+   private static final byte REFERENCED = 2;
+
+   private final long[] keys;
+   private final double[] values;
+   private final byte[] depths;
+   private final byte[] states;
+   private final byte[] hands;
+   private final int setMask;
+   private final StampedLock[] locks = new StampedLock[STRIPES];
+
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+
+   public EvaluationCache(int capacity) {
+      if (capacity <= 0)
+         throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+      int sets = Integer.highestOneBit(Math.max(1, capacity / WAYS));
+      if (sets * WAYS < capacity)
+         sets <<= 1;
+      keys = new long[sets * WAYS];
+      values = new double[sets * WAYS];
+      depths = new byte[sets * WAYS];
+      states = new byte[sets * WAYS];
+      hands = new byte[sets];
+      setMask = sets - 1;
+      for (int i = 0; i < STRIPES; i++) {
+         locks[i] = new StampedLock();
+      }
+   }
+
+   // Returns the stored value, or NaN when the board isn't stored at exactly this depth
+   public double get(long board, int depth) {
+      int set = set(board);
+      int first = set * WAYS;
+      StampedLock lock = locks[set & (STRIPES - 1)];
+
+      long stamp = lock.tryOptimisticRead();
+      int slot = find(first, board, depth);
+      double value = slot < 0 ? Double.NaN : values[slot];
+      if (!lock.validate(stamp)) {
+         stamp = lock.readLock();
+         try {
+            slot = find(first, board, depth);
+            value = slot < 0 ? Double.NaN : values[slot];
+         } finally {
+            lock.unlockRead(stamp);
+         }
+      }
+
+      if (slot < 0) {
+         misses.increment();
+         return Double.NaN;
+      }
+      // A racy store is fine here, a lost reference bit only makes the entry easier to evict. One landing after
+      // clear marks a way without a depth, which find never matches and victim still takes as free.
+      states[slot] = REFERENCED;
+      hits.increment();
+      return value;
+   }
+
+   public void put(long board, int depth, double value) {
+      int set = set(board);
+      int first = set * WAYS;
+      StampedLock lock = locks[set & (STRIPES - 1)];
+
+      long stamp = lock.writeLock();
+      try {
+         int slot = find(first, board, depth);
+         if (slot < 0)
+            slot = victim(set, first);
+         keys[slot] = board;
+         values[slot] = value;
+         depths[slot] = (byte) (depth + 1);
+         states[slot] = PRESENT;
+      } finally {
+         lock.unlockWrite(stamp);
+      }
+   }
+
+   private int find(int first, long board, int depth) {
+      for (int slot = first; slot < first + WAYS; slot++) {
+         if (keys[slot] == board && depths[slot] == depth + 1 && states[slot] != EMPTY)
+            return slot;
+      }
+      return -1;
+   }
+
+   // Takes a free way if there is one, otherwise sweeps the hand past referenced entries
+   private int victim(int set, int first) {
+      for (int slot = first; slot < first + WAYS; slot++) {
+         if (depths[slot] == 0)
+            return slot;
+      }
+
+      int hand = hands[set];
+      while (states[first + hand] == REFERENCED) {
+         states[first + hand] = PRESENT;
+         hand = (hand + 1) & (WAYS - 1);
+      }
+      hands[set] = (byte) ((hand + 1) & (WAYS - 1));
+      evictions.increment();
+      return first + hand;
+   }
+
+   public void clear() {
+      for (int stripe = 0; stripe < STRIPES; stripe++) {
+         long stamp = locks[stripe].writeLock();
+         try {
+            for (int set = stripe; set <= setMask; set += STRIPES) {
+               for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+                  states[slot] = EMPTY;
+                  depths[slot] = 0;
+               }
+            }
+         } finally {
+            locks[stripe].unlockWrite(stamp);
+         }
+      }
+   }
+
+   public int capacity() {
+      return keys.length;
+   }
+
+   public long getHits() {
+      return hits.sum();
+   }
+
+   public long getMisses() {
+      return misses.sum();
+   }
+
+   public long getEvictions() {
+      return evictions.sum();
+   }
+
+   public double getHitRate() {
+      long hits = getHits();
+      long lookups = hits + getMisses();
+      return lookups == 0 ? 0 : (double) hits / lookups;
+   }
+
+   @Override
+   public String toString() {
+      return String.format("%,d hits, %,d misses (%.1f%% hit rate), %,d evictions, capacity %,d",
+            getHits(), getMisses(), 100 * getHitRate(), getEvictions(), capacity());
+   }
+
+   private int set(long board) {
+      long hash = board * 0x9E3779B97F4A7C15L;
+      return (int) (hash ^ (hash >>> 32)) & setMask;
+   }
+
+}
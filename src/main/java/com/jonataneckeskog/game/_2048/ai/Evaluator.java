@@ -0,0 +1,9 @@
+package com.jonataneckeskog.game._2048.ai;
+
+@FunctionalInterface
+public interface Evaluator {
+
+   // Estimates the value of a bitboard position, higher is better
+   double evaluate(long board);
+
+}
@@ -0,0 +1,36 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.time.Duration;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Plays 4x4 boards with a fixed-depth Solver
+public class ExpectimaxPolicy implements Policy {
+
+   private static final int TABLE_CAPACITY = 1 << 18;
+
+   private final Solver solver;
+
+   public ExpectimaxPolicy(int depth) {
+      this(new Heuristic(), depth);
+   }
+
+   public ExpectimaxPolicy(Evaluator evaluator, int depth) {
+      this(new Solver(evaluator, depth, Duration.ZERO, TABLE_CAPACITY));
+   }
+
+   public ExpectimaxPolicy(Solver solver) {
+      this.solver = solver;
+   }
+
+   @Override
+   public Direction chooseMove(Board board) {
+      return solver.bestMove(board);
+   }
+
+   public Solver getSolver() {
+      return solver;
+   }
+
+}
@@ -0,0 +1,123 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.util.Arrays;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.Symmetry;
+
+// Sequential expectimax recursion, one instance per searching thread
+class ExpectimaxSearch {
+
+   // Spawn odds used by Cell.defaultValueCell
+   static final double TWO_PROBABILITY = 0.9;
+   static final double FOUR_PROBABILITY = 0.1;
+
+   static final Direction[] DIRECTIONS = Direction.values();
+   static final SearchTimeout TIMEOUT = new SearchTimeout();
+
+   // Leaves are cheaper to evaluate again than to canonicalize
+   static final int CACHE_MIN_DEPTH = 1;
+
+   // A lost position, far below what any evaluator gives a live board, which Heuristic already scores below zero
+   // once large tiles appear. Finite, so chance nodes still weigh how likely a loss is.
+   static final double LOST_VALUE = -1e12;
+
+   private static final int TIME_CHECK_MASK = 1023;
+
+   private final Evaluator evaluator;
+   private final TranspositionTable table;
+   private final EvaluationCache cache;
+   private final long deadline;
+   private final boolean timed;
+   private long nodes;
+   // Four afterstates per remaining depth, so a max node's successors survive the recursion below it
+   private long[] afterstates = new long[0];
+
+   ExpectimaxSearch(Evaluator evaluator, TranspositionTable table, EvaluationCache cache, long deadline,
+         boolean timed) {
+      this.evaluator = evaluator;
+      this.table = table;
+      this.cache = cache;
+      this.deadline = deadline;
+      this.timed = timed;
+   }
+
+   double maxNode(long board, int depth) {
+      countNode();
+      int offset = depth * DIRECTIONS.length;
+      if (offset + DIRECTIONS.length > afterstates.length)
+         afterstates = Arrays.copyOf(afterstates, offset + DIRECTIONS.length);
+      int legal = BitBoard.afterstates(board, afterstates, null, offset);
+      if (legal == 0)
+         return LOST_VALUE;
+
+      double best = Double.NEGATIVE_INFINITY;
+      for (; legal != 0; legal &= legal - 1) {
+         long after = afterstates[offset + Integer.numberOfTrailingZeros(legal)];
+         best = Math.max(best, chanceNode(after, depth - 1));
+      }
+      return best;
+   }
+
+   double chanceNode(long board, int depth) {
+      if (depth == 0)
+         return evaluator.evaluate(board);
+
+      if (usesCache(cache, depth)) {
+         // Always searching the canonical board keeps the cached value independent of which symmetry came first
+         long canonical = Symmetry.canonical(board);
+         double cached = cache.get(canonical, depth);
+         if (!Double.isNaN(cached))
+            return cached;
+         double value = expandChance(canonical, depth);
+         cache.put(canonical, depth, value);
+         return value;
+      }
+
+      double cached = table.get(board, depth);
+      if (!Double.isNaN(cached))
+         return cached;
+      double value = expandChance(board, depth);
+      table.put(board, depth, value);
+      return value;
+   }
+
+   private double expandChance(long board, int depth) {
+      countNode();
+      long empty = BitBoard.emptyMask(board);
+      int emptyCount = Long.bitCount(empty);
+      if (emptyCount == 0)
+         return evaluator.evaluate(board);
+
+      double total = 0;
+      for (long remaining = empty; remaining != 0; remaining &= remaining - 1) {
+         // The mask bit sits at the bottom of the empty nibble, so it is also a 2 tile
+         long two = Long.lowestOneBit(remaining);
+         total += TWO_PROBABILITY * maxNode(board | two, depth)
+               + FOUR_PROBABILITY * maxNode(board | (two << 1), depth);
+      }
+
+      return total / emptyCount;
+   }
+
+   static boolean usesCache(EvaluationCache cache, int depth) {
+      return cache != null && depth >= CACHE_MIN_DEPTH;
+   }
+
+   void countNode() {
+      if ((++nodes & TIME_CHECK_MASK) == 0 && timed && System.nanoTime() > deadline)
+         throw TIMEOUT;
+   }
+
+   long getNodeCount() {
+      return nodes;
+   }
+
+   static class SearchTimeout extends RuntimeException {
+      private SearchTimeout() {
+         super("Search time budget exceeded", null, false, false);
+      }
+   }
+
+}
@@ -0,0 +1,40 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Takes the move with the largest immediate merge score, preferring more empty cells on ties
+public class GreedyPolicy implements Policy {
+
+   private static final Direction[] DIRECTIONS = Direction.values();
+
+   private byte[] afterstates = new byte[0];
+   private final long[] rewards = new long[DIRECTIONS.length];
+
+   @Override
+   public Direction chooseMove(Board board) {
+      int cells = board.getSidelength() * board.getSidelength();
+      if (afterstates.length != DIRECTIONS.length * cells)
+         afterstates = new byte[DIRECTIONS.length * cells];
+
+      Direction best = null;
+      long bestReward = -1;
+      int bestEmpty = -1;
+      for (int legal = board.afterstates(afterstates, rewards); legal != 0; legal &= legal - 1) {
+         int direction = Integer.numberOfTrailingZeros(legal);
+         long reward = rewards[direction];
+         int empty = 0;
+         for (int i = direction * cells; i < (direction + 1) * cells; i++) {
+            if (afterstates[i] == 0)
+               empty++;
+         }
+         if (reward > bestReward || (reward == bestReward && empty > bestEmpty)) {
+            best = DIRECTIONS[direction];
+            bestReward = reward;
+            bestEmpty = empty;
+         }
+      }
+      return best;
+   }
+
+}
@@ -0,0 +1,82 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+
+public class Heuristic implements Evaluator {
+
+   private static final double LOST_PENALTY = 200000.0;
+   private static final double MONOTONICITY_POWER = 4.0;
+   private static final double MONOTONICITY_WEIGHT = 47.0;
+   private static final double SUM_POWER = 3.5;
+   private static final double SUM_WEIGHT = 11.0;
+   private static final double MERGES_WEIGHT = 700.0;
+   private static final double EMPTY_WEIGHT = 270.0;
+
+   // Score per 16-bit row, summed over the rows and columns of a board
+   private static final float[] ROW_SCORES = new float[65536];
+
+   static {
+      int[] line = new int[BitBoard.SIDELENGTH];
+      for (int row = 0; row < 65536; row++) {
+         for (int i = 0; i < line.length; i++) {
+            line[i] = (row >> (4 * i)) & 0xF;
+         }
+         ROW_SCORES[row] = (float) scoreLine(line);
+      }
+   }
+
+   private static double scoreLine(int[] line) {
+      double sum = 0;
+      int empty = 0;
+      int merges = 0;
+      int previous = 0;
+      int counter = 0;
+
+      for (int exponent : line) {
+         sum += Math.pow(exponent, SUM_POWER);
+         if (exponent == 0) {
+            empty++;
+         } else {
+            if (previous == exponent) {
+               counter++;
+            } else if (counter > 0) {
+               merges += 1 + counter;
+               counter = 0;
+            }
+            previous = exponent;
+         }
+      }
+      if (counter > 0)
+         merges += 1 + counter;
+
+      // Penalise rows that are neither increasing nor decreasing, whichever is closer
+      double monotonicityLeft = 0;
+      double monotonicityRight = 0;
+      for (int i = 1; i < line.length; i++) {
+         double difference = Math.pow(line[i - 1], MONOTONICITY_POWER) - Math.pow(line[i], MONOTONICITY_POWER);
+         if (difference > 0)
+            monotonicityLeft += difference;
+         else
+            monotonicityRight -= difference;
+      }
+
+      return LOST_PENALTY / (2 * BitBoard.SIDELENGTH)
+            + EMPTY_WEIGHT * empty
+            + MERGES_WEIGHT * merges
+            - MONOTONICITY_WEIGHT * Math.min(monotonicityLeft, monotonicityRight)
+            - SUM_WEIGHT * sum;
+   }
+
+   @Override
+   public double evaluate(long board) {
+      return scoreRows(board) + scoreRows(BitBoard.transpose(board));
+   }
+
+   private static double scoreRows(long board) {
+      return ROW_SCORES[(int) (board & 0xFFFF)]
+            + ROW_SCORES[(int) ((board >>> 16) & 0xFFFF)]
+            + ROW_SCORES[(int) ((board >>> 32) & 0xFFFF)]
+            + ROW_SCORES[(int) ((board >>> 48) & 0xFFFF)];
+   }
+
+}
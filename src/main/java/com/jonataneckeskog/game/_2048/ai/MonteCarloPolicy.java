@@ -0,0 +1,176 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// Scores every legal move by the mean score gained over random playouts that start with it. Playouts run as
+// fork/join tasks, and each worker thread reuses its own scratch board, so a playout allocates nothing. Every task
+// splits its random generator off its parent's before forking, so a seeded policy picks the same moves however
+// the pool schedules them.
+public class MonteCarloPolicy implements Policy {
+
+   public static final int DEFAULT_ROLLOUTS = 200;
+
+   // Playouts run by one task before it stops splitting
+   private static final int CHUNK = 16;
+   private static final double Z_95 = 1.96;
+   private static final Direction[] DIRECTIONS = Direction.values();
+   private static final ThreadLocal<Board> SCRATCH = new ThreadLocal<>();
+
+   private final int rollouts;
+   private final int depthCap;
+   private final ForkJoinPool pool;
+   private final SplittableRandom random;
+   private final MoveStatistics[] lastStatistics = new MoveStatistics[DIRECTIONS.length];
+   private double lastRolloutsPerSecond;
+
+   // Mean score gained by the playouts of one move and the half-width of its 95% confidence interval
+   public record MoveStatistics(Direction direction, long rollouts, double meanScore, double confidence) {
+
+      @Override
+      public String toString() {
+         return String.format("%s %,.1f +/- %,.1f (%,d rollouts)", direction, meanScore, confidence, rollouts);
+      }
+   }
+
+   public MonteCarloPolicy(int rollouts, int depthCap) {
+      this(rollouts, depthCap, ForkJoinPool.commonPool(), new SplittableRandom());
+   }
+
+   // rollouts is per legal move, depthCap limits the random moves after the first, 0 playing to game over
+   public MonteCarloPolicy(int rollouts, int depthCap, ForkJoinPool pool, SplittableRandom random) {
+      if (rollouts < 1 || depthCap < 0)
+         throw new IllegalArgumentException("Rollouts must be positive and the depth cap non-negative");
+      this.rollouts = rollouts;
+      this.depthCap = depthCap;
+      this.pool = pool;
+      this.random = random;
+   }
+
+   @Override
+   public Direction chooseMove(Board board) {
+      long start = System.nanoTime();
+      List<RolloutTask> tasks = new ArrayList<>(DIRECTIONS.length);
+      for (Direction direction : DIRECTIONS) {
+         lastStatistics[direction.ordinal()] = null;
+         if (board.canMove(direction))
+            tasks.add(new RolloutTask(board, direction, rollouts, random.split()));
+      }
+      if (tasks.isEmpty())
+         return null;
+
+      pool.invoke(new RecursiveAction() {
+         @Override
+         protected void compute() {
+            invokeAll(tasks);
+         }
+      });
+
+      Direction best = null;
+      double bestMean = Double.NEGATIVE_INFINITY;
+      long total = 0;
+      for (RolloutTask task : tasks) {
+         MoveStatistics statistics = task.statistics();
+         lastStatistics[task.direction.ordinal()] = statistics;
+         total += statistics.rollouts();
+         if (statistics.meanScore() > bestMean) {
+            bestMean = statistics.meanScore();
+            best = task.direction;
+         }
+      }
+      lastRolloutsPerSecond = total / ((System.nanoTime() - start) / 1e9);
+      return best;
+   }
+
+   // Statistics of the last chooseMove, indexed by Direction ordinal and null for illegal moves
+   public MoveStatistics[] getLastStatistics() {
+      return lastStatistics.clone();
+   }
+
+   public double getLastRolloutsPerSecond() {
+      return lastRolloutsPerSecond;
+   }
+
+   public int getRollouts() {
+      return rollouts;
+   }
+
+   public int getDepthCap() {
+      return depthCap;
+   }
+
+   private static Board scratch(int sidelength) {
+      Board scratch = SCRATCH.get();
+      if (scratch == null || scratch.getSidelength() != sidelength) {
+         scratch = new Board(sidelength);
+         SCRATCH.set(scratch);
+      }
+      return scratch;
+   }
+
+   // Splits a move's playouts in halves down to CHUNK, then sums their scores. Moves and spawns in the playouts
+   // both draw from the task's own generator.
+   private class RolloutTask extends RecursiveAction {
+      private final Board board;
+      private final Direction direction;
+      private final int count;
+      private final SplittableRandom random;
+      private double sum;
+      private double sumOfSquares;
+
+      RolloutTask(Board board, Direction direction, int count, SplittableRandom random) {
+         this.board = board;
+         this.direction = direction;
+         this.count = count;
+         this.random = random;
+      }
+
+      @Override
+      protected void compute() {
+         if (count > CHUNK) {
+            RolloutTask left = new RolloutTask(board, direction, count / 2, random.split());
+            RolloutTask right = new RolloutTask(board, direction, count - count / 2, random.split());
+            invokeAll(left, right);
+            sum = left.sum + right.sum;
+            sumOfSquares = left.sumOfSquares + right.sumOfSquares;
+            return;
+         }
+
+         Board scratch = scratch(board.getSidelength());
+         scratch.setSpawnSource(SpawnSource.of(random));
+         for (int i = 0; i < count; i++) {
+            double score = rollout(scratch);
+            sum += score;
+            sumOfSquares += score * score;
+         }
+      }
+
+      // The board is only read while the playouts copy it
+      private double rollout(Board scratch) {
+         scratch.copyFrom(board);
+         scratch.move(direction);
+         scratch.fillRandomEmptyCell();
+         for (int moves = 0; (depthCap == 0 || moves < depthCap) && !scratch.isGameOver(); moves++) {
+            // The board isn't over, so some direction moves
+            while (!scratch.move(DIRECTIONS[random.nextInt(DIRECTIONS.length)])) {
+            }
+            scratch.fillRandomEmptyCell();
+         }
+         return scratch.getScore() - board.getScore();
+      }
+
+      MoveStatistics statistics() {
+         double mean = sum / count;
+         double variance = count < 2 ? 0 : Math.max(0, (sumOfSquares - count * mean * mean) / (count - 1));
+         return new MoveStatistics(direction, count, mean, Z_95 * Math.sqrt(variance / count));
+      }
+   }
+
+}
@@ -0,0 +1,281 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Symmetry;
+
+// Sums one weight per tuple and symmetry, each weight indexed by the exponents under a tuple of cells in all eight
+// rotations and reflections of the board. The weights are a flat float array, or a read-only memory-mapped file
+// for tables that shouldn't live on the heap. Either way a network can be shared by any number of threads.
+//
+// Weight file layout, all numbers little-endian so a mapped table is read in native order on x86 and ARM:
+//
+//   int MAGIC, int VERSION, int tuples, per tuple: int length, length * int cell, then float weights
+public class NTupleNetwork implements Evaluator {
+
+   public static final int MAX_TUPLE_LENGTH = 7;
+   // Keeps a weight file inside a single 2 GB mapping
+   public static final int MAX_WEIGHTS = 1 << 28;
+
+   // Four 6-tuples covering the rows, columns and 2x3 rectangles next to an edge
+   public static final int[][] DEFAULT_TUPLES = {
+         { 0, 1, 2, 3, 4, 5 },
+         { 4, 5, 6, 7, 8, 9 },
+         { 0, 1, 2, 4, 5, 6 },
+         { 4, 5, 6, 8, 9, 10 } };
+
+   static final int MAGIC = 0x4E545550;
+   static final int VERSION = 1;
+
+   private static final int CELLS = BitBoard.SIDELENGTH * BitBoard.SIDELENGTH;
+
+   private final int[][] tuples;
+   // Start of each tuple's table in the weights
+   private final int[] offsets;
+   // Nibble shift of every cell of every tuple in every symmetry, in evaluation order
+   private final int[] shifts;
+   private final int size;
+   private final float[] weights;
+   private final FloatBuffer mapped;
+
+   public NTupleNetwork(int[][] tuples) {
+      this(tuples, null, null);
+   }
+
+   private NTupleNetwork(int[][] tuples, float[] weights, FloatBuffer mapped) {
+      this.tuples = copy(tuples);
+      offsets = new int[tuples.length];
+      long total = 0;
+      int cells = 0;
+      for (int t = 0; t < tuples.length; t++) {
+         offsets[t] = (int) total;
+         total += 1L << (4 * tuples[t].length);
+         if (total > MAX_WEIGHTS)
+            throw new IllegalArgumentException("Tuples need more than " + MAX_WEIGHTS + " weights");
+         cells += tuples[t].length;
+      }
+      size = (int) total;
+
+      shifts = new int[cells * Symmetry.TRANSFORMS];
+      int next = 0;
+      for (int[] tuple : this.tuples) {
+         for (int transform = 0; transform < Symmetry.TRANSFORMS; transform++) {
+            for (int cell : tuple) {
+               long moved = Symmetry.apply(1L << (4 * cell), transform);
+               shifts[next++] = Long.numberOfTrailingZeros(moved);
+            }
+         }
+      }
+
+      if (weights == null && mapped == null)
+         weights = new float[size];
+      this.weights = weights;
+      this.mapped = mapped;
+   }
+
+   private static int[][] copy(int[][] tuples) {
+      if (tuples.length == 0)
+         throw new IllegalArgumentException("A network needs at least one tuple");
+      int[][] copy = new int[tuples.length][];
+      for (int t = 0; t < tuples.length; t++) {
+         int[] tuple = tuples[t];
+         if (tuple.length == 0 || tuple.length > MAX_TUPLE_LENGTH)
+            throw new IllegalArgumentException(
+                  "Tuple length must be between 1 and " + MAX_TUPLE_LENGTH + ": " + Arrays.toString(tuple));
+         for (int cell : tuple) {
+            if (cell < 0 || cell >= CELLS)
+               throw new IllegalArgumentException("Cell " + cell + " is out of bounds in " + Arrays.toString(tuple));
+         }
+         copy[t] = tuple.clone();
+      }
+      return copy;
+   }
+
+   // Parses a layout such as "0,1,2,3;4,5,6,7", tuples separated by semicolons and cells in row-major order
+   public static int[][] parseTuples(String layout) {
+      String[] parts = layout.split(";");
+      int[][] tuples = new int[parts.length][];
+      for (int t = 0; t < parts.length; t++) {
+         tuples[t] = Arrays.stream(parts[t].split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+      }
+      return tuples;
+   }
+
+   @Override
+   public double evaluate(long board) {
+      double sum = 0;
+      int next = 0;
+      for (int t = 0; t < tuples.length; t++) {
+         int length = tuples[t].length;
+         int offset = offsets[t];
+         for (int transform = 0; transform < Symmetry.TRANSFORMS; transform++) {
+            int index = 0;
+            for (int i = 0; i < length; i++) {
+               index = index << 4 | (int) ((board >>> shifts[next++]) & 0xF);
+            }
+            sum += getWeightUnchecked(offset + index);
+         }
+      }
+      return sum;
+   }
+
+   // Adds delta to every weight the board reads. Writes aren't synchronized, so concurrent updates may lose some
+   // of each other's increments; mapped networks are read-only.
+   public void update(long board, float delta) {
+      if (weights == null)
+         throw new UnsupportedOperationException("Memory-mapped networks are read-only");
+      int next = 0;
+      for (int t = 0; t < tuples.length; t++) {
+         int length = tuples[t].length;
+         int offset = offsets[t];
+         for (int transform = 0; transform < Symmetry.TRANSFORMS; transform++) {
+            int index = 0;
+            for (int i = 0; i < length; i++) {
+               index = index << 4 | (int) ((board >>> shifts[next++]) & 0xF);
+            }
+            weights[offset + index] += delta;
+         }
+      }
+   }
+
+   // Number of weights each evaluation sums
+   public int getLookups() {
+      return tuples.length * Symmetry.TRANSFORMS;
+   }
+
+   public int[][] getTuples() {
+      return copy(tuples);
+   }
+
+   public int size() {
+      return size;
+   }
+
+   public boolean isReadOnly() {
+      return weights == null;
+   }
+
+   public float getWeight(int index) {
+      if (index < 0 || index >= size)
+         throw new IndexOutOfBoundsException("Weight " + index + " is out of bounds for " + size + " weights");
+      return getWeightUnchecked(index);
+   }
+
+   public void setWeight(int index, float weight) {
+      if (weights == null)
+         throw new UnsupportedOperationException("Memory-mapped networks are read-only");
+      if (index < 0 || index >= size)
+         throw new IndexOutOfBoundsException("Weight " + index + " is out of bounds for " + size + " weights");
+      weights[index] = weight;
+   }
+
+   public void save(Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+         ByteBuffer header = ByteBuffer.allocate(headerBytes(tuples)).order(ByteOrder.LITTLE_ENDIAN);
+         header.putInt(MAGIC).putInt(VERSION).putInt(tuples.length);
+         for (int[] tuple : tuples) {
+            header.putInt(tuple.length);
+            for (int cell : tuple) {
+               header.putInt(cell);
+            }
+         }
+         writeFully(channel, header.flip());
+
+         ByteBuffer chunk = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+         FloatBuffer floats = chunk.asFloatBuffer();
+         for (int start = 0; start < size; start += floats.capacity()) {
+            int count = Math.min(floats.capacity(), size - start);
+            floats.clear();
+            for (int i = 0; i < count; i++) {
+               floats.put(getWeightUnchecked(start + i));
+            }
+            writeFully(channel, chunk.clear().limit(count * Float.BYTES));
+         }
+      }
+   }
+
+   private float getWeightUnchecked(int index) {
+      return weights != null ? weights[index] : mapped.get(index);
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+         channel.write(buffer);
+      }
+   }
+
+   // Reads a weight file onto the heap, where the weights can be trained further
+   public static NTupleNetwork load(Path path) throws IOException {
+      NTupleNetwork network = map(path);
+      float[] weights = new float[network.size];
+      network.mapped.get(0, weights);
+      return new NTupleNetwork(network.tuples, weights, null);
+   }
+
+   // Maps a weight file read-only, the weights stay in the page cache and are shared with other processes
+   public static NTupleNetwork map(Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         long fileSize = channel.size();
+         MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+         buffer.order(ByteOrder.LITTLE_ENDIAN);
+         if (fileSize < 3 * Integer.BYTES || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not an n-tuple weight file: " + path);
+         if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported n-tuple weight file version " + buffer.getInt(4) + " in " + path);
+
+         int count = buffer.getInt(8);
+         if (count < 1 || count > fileSize / Integer.BYTES)
+            throw new IOException("Corrupt tuple count " + count + " in " + path);
+         int[][] tuples = new int[count][];
+         int position = 3 * Integer.BYTES;
+         for (int t = 0; t < count; t++) {
+            int length = buffer.getInt(position);
+            if (length < 1 || length > MAX_TUPLE_LENGTH)
+               throw new IOException("Corrupt tuple length " + length + " in " + path);
+            position += Integer.BYTES;
+            tuples[t] = new int[length];
+            for (int i = 0; i < length; i++) {
+               tuples[t][i] = buffer.getInt(position);
+               position += Integer.BYTES;
+            }
+         }
+
+         FloatBuffer weights = buffer.slice(position, (int) (fileSize - position)).order(ByteOrder.LITTLE_ENDIAN)
+               .asFloatBuffer();
+         NTupleNetwork network;
+         try {
+            network = new NTupleNetwork(tuples, null, weights);
+         } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid tuples in " + path + ": " + e.getMessage(), e);
+         }
+         if (weights.capacity() != network.size)
+            throw new IOException("Expected " + network.size + " weights in " + path + ", found " + weights.capacity());
+         return network;
+      }
+   }
+
+   private static int headerBytes(int[][] tuples) {
+      int bytes = 3 * Integer.BYTES;
+      for (int[] tuple : tuples) {
+         bytes += (1 + tuple.length) * Integer.BYTES;
+      }
+      return bytes;
+   }
+
+   @Override
+   public String toString() {
+      return "NTupleNetwork" + Arrays.deepToString(tuples) + " with " + size + " weights"
+            + (isReadOnly() ? " (mapped)" : "");
+   }
+
+}
@@ -0,0 +1,199 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.Symmetry;
+
+// Splits the root moves and the spawns of their chance nodes across a fork/join pool.
+// Chance values are summed in the same order as Solver, so both pick the same move at equal depth.
+public class ParallelSolver extends Solver implements AutoCloseable {
+
+   private final ForkJoinPool pool;
+   private final boolean ownsPool;
+
+   public ParallelSolver(int maxDepth, int parallelism) {
+      this(maxDepth, Duration.ZERO, parallelism);
+   }
+
+   public ParallelSolver(int maxDepth, Duration timeBudget, int parallelism) {
+      this(new Heuristic(), maxDepth, timeBudget, DEFAULT_TABLE_CAPACITY, new ForkJoinPool(parallelism), true);
+   }
+
+   public ParallelSolver(Evaluator evaluator, int maxDepth, Duration timeBudget, int tableCapacity,
+         ForkJoinPool pool) {
+      this(evaluator, maxDepth, timeBudget, tableCapacity, pool, false);
+   }
+
+   private ParallelSolver(Evaluator evaluator, int maxDepth, Duration timeBudget, int tableCapacity,
+         ForkJoinPool pool, boolean ownsPool) {
+      super(evaluator, maxDepth, timeBudget, tableCapacity);
+      this.pool = pool;
+      this.ownsPool = ownsPool;
+   }
+
+   @Override
+   Direction searchRoot(long board, int depth, long deadline, boolean timed) {
+      SearchContext context = new SearchContext(getCache(), deadline, timed);
+      ChanceTask[] tasks = new ChanceTask[ExpectimaxSearch.DIRECTIONS.length];
+
+      try {
+         pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+               for (int i = 0; i < tasks.length; i++) {
+                  long after = BitBoard.move(board, ExpectimaxSearch.DIRECTIONS[i]);
+                  if (after != board)
+                     tasks[i] = new ChanceTask(context, after, depth - 1);
+               }
+               for (ChanceTask task : tasks) {
+                  if (task != null)
+                     task.fork();
+               }
+               for (ChanceTask task : tasks) {
+                  if (task != null)
+                     task.join();
+               }
+            }
+         });
+      } catch (RuntimeException e) {
+         if (isTimeout(e))
+            throw ExpectimaxSearch.TIMEOUT;
+         throw e;
+      } finally {
+         addNodes(context.nodes.sum());
+      }
+
+      Direction best = null;
+      double bestValue = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < tasks.length; i++) {
+         if (tasks[i] != null && tasks[i].value > bestValue) {
+            bestValue = tasks[i].value;
+            best = ExpectimaxSearch.DIRECTIONS[i];
+         }
+      }
+      setLastValue(best == null ? 0 : bestValue);
+      return best;
+   }
+
+   private static boolean isTimeout(Throwable e) {
+      for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+         if (cause instanceof ExpectimaxSearch.SearchTimeout)
+            return true;
+      }
+      return false;
+   }
+
+   public int getParallelism() {
+      return pool.getParallelism();
+   }
+
+   @Override
+   public void close() {
+      if (ownsPool)
+         pool.shutdown();
+   }
+
+   private static class SearchContext {
+      private final EvaluationCache cache;
+      private final long deadline;
+      private final boolean timed;
+      private final LongAdder nodes = new LongAdder();
+
+      SearchContext(EvaluationCache cache, long deadline, boolean timed) {
+         this.cache = cache;
+         this.deadline = deadline;
+         this.timed = timed;
+      }
+   }
+
+   // The chance node below a root move, fanned out over its spawn positions
+   private class ChanceTask extends RecursiveAction {
+      private final SearchContext context;
+      private final long board;
+      private final int depth;
+      private double value;
+
+      ChanceTask(SearchContext context, long board, int depth) {
+         this.context = context;
+         this.board = board;
+         this.depth = depth;
+      }
+
+      @Override
+      protected void compute() {
+         if (depth == 0) {
+            value = getEvaluator().evaluate(board);
+            return;
+         }
+
+         // Same canonical board as ExpectimaxSearch.chanceNode, so both searches cache identical values
+         boolean usesCache = ExpectimaxSearch.usesCache(context.cache, depth);
+         long board = usesCache ? Symmetry.canonical(this.board) : this.board;
+         double cached = usesCache ? context.cache.get(board, depth) : getTable().get(board, depth);
+         if (!Double.isNaN(cached)) {
+            value = cached;
+            return;
+         }
+
+         context.nodes.increment();
+         long empty = BitBoard.emptyMask(board);
+         int emptyCount = Long.bitCount(empty);
+         if (emptyCount == 0) {
+            value = getEvaluator().evaluate(board);
+            return;
+         }
+
+         // The 2 and the 4 on each empty cell side by side, all forked at once
+         MaxTask[] spawns = new MaxTask[2 * emptyCount];
+         int i = 0;
+         for (long remaining = empty; remaining != 0; remaining &= remaining - 1, i += 2) {
+            long two = Long.lowestOneBit(remaining);
+            spawns[i] = new MaxTask(context, board | two, depth);
+            spawns[i + 1] = new MaxTask(context, board | (two << 1), depth);
+         }
+         ForkJoinTask.invokeAll(spawns);
+
+         double total = 0;
+         for (i = 0; i < spawns.length; i += 2) {
+            total += ExpectimaxSearch.TWO_PROBABILITY * spawns[i].value
+                  + ExpectimaxSearch.FOUR_PROBABILITY * spawns[i + 1].value;
+         }
+         value = total / emptyCount;
+         if (usesCache)
+            context.cache.put(board, depth, value);
+         else
+            getTable().put(board, depth, value);
+      }
+   }
+
+   private class MaxTask extends RecursiveAction {
+      private final SearchContext context;
+      private final long board;
+      private final int depth;
+      private double value;
+
+      MaxTask(SearchContext context, long board, int depth) {
+         this.context = context;
+         this.board = board;
+         this.depth = depth;
+      }
+
+      @Override
+      protected void compute() {
+         ExpectimaxSearch search = new ExpectimaxSearch(getEvaluator(), getTable(), context.cache, context.deadline,
+               context.timed);
+         try {
+            value = search.maxNode(board, depth);
+         } finally {
+            context.nodes.add(search.getNodeCount());
+         }
+      }
+   }
+
+}
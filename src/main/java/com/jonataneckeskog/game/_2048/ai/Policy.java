@@ -0,0 +1,49 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Picks moves for an automated player. Instances aren't shared between threads.
+@FunctionalInterface
+public interface Policy {
+
+   // Returns null when no move is legal
+   Direction chooseMove(Board board);
+
+   static Policy create(String name, RandomGenerator random, int depth) {
+      return switch (name.toLowerCase()) {
+         case "random" -> new RandomPolicy(random);
+         case "greedy" -> new GreedyPolicy();
+         case "expectimax" -> new ExpectimaxPolicy(depth);
+         case "montecarlo" -> new MonteCarloPolicy(MonteCarloPolicy.DEFAULT_ROLLOUTS, 0, ForkJoinPool.commonPool(),
+               new SplittableRandom(random.nextLong()));
+         default -> throw unknownPolicy(name);
+      };
+   }
+
+   // Checks that create knows the name and that the policy can play boards of that size, without building it.
+   // Expectimax searches on bitboards, which only hold 4x4 boards.
+   static void validate(String name, int sidelength) {
+      switch (name.toLowerCase()) {
+         case "random", "greedy", "montecarlo" -> {
+         }
+         case "expectimax" -> {
+            if (sidelength != BitBoard.SIDELENGTH)
+               throw new IllegalArgumentException("Policy " + name + " only plays " + BitBoard.SIDELENGTH + "x"
+                     + BitBoard.SIDELENGTH + " boards, not " + sidelength + "x" + sidelength);
+         }
+         default -> throw unknownPolicy(name);
+      }
+   }
+
+   private static IllegalArgumentException unknownPolicy(String name) {
+      return new IllegalArgumentException(
+            "Unknown policy: " + name + " (expected random, greedy, expectimax or montecarlo)");
+   }
+
+}
@@ -0,0 +1,29 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.util.random.RandomGenerator;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+public class RandomPolicy implements Policy {
+
+   private static final Direction[] DIRECTIONS = Direction.values();
+
+   private final RandomGenerator random;
+   private final Direction[] legal = new Direction[DIRECTIONS.length];
+
+   public RandomPolicy(RandomGenerator random) {
+      this.random = random;
+   }
+
+   @Override
+   public Direction chooseMove(Board board) {
+      int count = 0;
+      for (Direction direction : DIRECTIONS) {
+         if (board.canMove(direction))
+            legal[count++] = direction;
+      }
+      return count == 0 ? null : legal[random.nextInt(count)];
+   }
+
+}
@@ -0,0 +1,57 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Reports parallel search throughput per thread count and checks it agrees with Solver.
+// Usage: SearchScaling [depth] [maxThreads]
+public class SearchScaling {
+
+   private static final String[] POSITIONS = {
+         "1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1",
+         "1,2,3,0,2,3,4,5,0,0,1,2,0,0,0,1",
+         "6,5,4,1,2,3,2,1,1,1,0,0,0,0,0,0",
+         "10,9,8,7,3,4,5,6,2,1,1,0,0,0,0,1",
+         "11,10,9,2,5,6,7,1,3,2,1,0,1,0,0,0" };
+
+   public static void main(String[] args) {
+      int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+      int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+      long[] boards = new long[POSITIONS.length];
+      for (int i = 0; i < boards.length; i++) {
+         boards[i] = BitBoard.buildFromString(POSITIONS[i]).getBits();
+      }
+
+      Direction[] expected = new Direction[boards.length];
+      double baseline = run(new Solver(depth), boards, expected, null);
+      System.out.printf("sequential: %,.0f nodes/s%n", baseline);
+
+      for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+         try (ParallelSolver solver = new ParallelSolver(depth, threads)) {
+            double rate = run(solver, boards, new Direction[boards.length], expected);
+            System.out.printf("%3d threads: %,.0f nodes/s (%.2fx)%n", threads, rate, rate / baseline);
+         }
+      }
+   }
+
+   private static double run(Solver solver, long[] boards, Direction[] moves, Direction[] expected) {
+      long nodes = 0;
+      long start = System.nanoTime();
+      for (int i = 0; i < boards.length; i++) {
+         moves[i] = solver.bestMove(boards[i]);
+         nodes += solver.getLastNodeCount();
+         if (expected != null && moves[i] != expected[i])
+            throw new IllegalStateException(
+                  "Parallel search picked " + moves[i] + " instead of " + expected[i] + " for " + POSITIONS[i]);
+      }
+      return nodes * 1e9 / (System.nanoTime() - start);
+   }
+
+   private static int nextThreadCount(int threads, int maxThreads) {
+      if (threads == maxThreads)
+         return maxThreads + 1;
+      return Math.min(threads * 2, maxThreads);
+   }
+
+}
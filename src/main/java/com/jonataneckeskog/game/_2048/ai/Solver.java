@@ -0,0 +1,143 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.time.Duration;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+public class Solver {
+
+   static final int DEFAULT_TABLE_CAPACITY = 1 << 20;
+
+   private final Evaluator evaluator;
+   private final TranspositionTable table;
+   private final int maxDepth;
+   private final long timeBudgetNanos;
+   private EvaluationCache cache;
+
+   private long nodes;
+   private long elapsedNanos;
+   private int lastDepth;
+   private double lastValue;
+
+   public Solver(int maxDepth) {
+      this(maxDepth, Duration.ZERO);
+   }
+
+   public Solver(int maxDepth, Duration timeBudget) {
+      this(new Heuristic(), maxDepth, timeBudget, DEFAULT_TABLE_CAPACITY);
+   }
+
+   // A zero time budget searches every move to maxDepth
+   public Solver(Evaluator evaluator, int maxDepth, Duration timeBudget, int tableCapacity) {
+      if (maxDepth < 1)
+         throw new IllegalArgumentException("Search depth must be at least 1: " + maxDepth);
+      if (timeBudget.isNegative())
+         throw new IllegalArgumentException("Time budget can't be negative: " + timeBudget);
+      this.evaluator = evaluator;
+      this.maxDepth = maxDepth;
+      this.timeBudgetNanos = timeBudget.toNanos();
+      this.table = new TranspositionTable(tableCapacity);
+   }
+
+   public Direction bestMove(Board board) {
+      return bestMove(BitBoard.fromBoard(board).getBits());
+   }
+
+   // Iterative deepening, returns null when no move is legal
+   public Direction bestMove(long board) {
+      long start = System.nanoTime();
+      long deadline = start + timeBudgetNanos;
+      nodes = 0;
+      lastDepth = 0;
+      lastValue = 0;
+
+      Direction best = null;
+      for (int depth = 1; depth <= maxDepth; depth++) {
+         // The first iteration always completes so there is a move to play
+         boolean timed = timeBudgetNanos > 0 && depth > 1;
+         try {
+            best = searchRoot(board, depth, deadline, timed);
+         } catch (ExpectimaxSearch.SearchTimeout e) {
+            break;
+         }
+         lastDepth = depth;
+         if (best == null || (timeBudgetNanos > 0 && System.nanoTime() - start >= timeBudgetNanos))
+            break;
+      }
+
+      elapsedNanos = System.nanoTime() - start;
+      return best;
+   }
+
+   // Searches every legal root move to the given depth, throwing SearchTimeout past the deadline
+   Direction searchRoot(long board, int depth, long deadline, boolean timed) {
+      ExpectimaxSearch search = new ExpectimaxSearch(evaluator, table, cache, deadline, timed);
+      try {
+         Direction best = null;
+         double bestValue = Double.NEGATIVE_INFINITY;
+         for (Direction direction : ExpectimaxSearch.DIRECTIONS) {
+            long after = BitBoard.move(board, direction);
+            if (after == board)
+               continue;
+            double value = search.chanceNode(after, depth - 1);
+            if (value > bestValue) {
+               bestValue = value;
+               best = direction;
+            }
+         }
+         setLastValue(best == null ? 0 : bestValue);
+         return best;
+      } finally {
+         addNodes(search.getNodeCount());
+      }
+   }
+
+   void addNodes(long count) {
+      nodes += count;
+   }
+
+   void setLastValue(double value) {
+      lastValue = value;
+   }
+
+   Evaluator getEvaluator() {
+      return evaluator;
+   }
+
+   TranspositionTable getTable() {
+      return table;
+   }
+
+   public EvaluationCache getCache() {
+      return cache;
+   }
+
+   // Deeper chance nodes go through a cache keyed on the canonical board, which may be shared between solvers.
+   // Only valid for evaluators that score every symmetry of a board the same, like Heuristic.
+   public void setCache(EvaluationCache cache) {
+      this.cache = cache;
+   }
+
+   public long getLastNodeCount() {
+      return nodes;
+   }
+
+   public double getLastNodesPerSecond() {
+      return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+   }
+
+   public int getLastDepth() {
+      return lastDepth;
+   }
+
+   public double getLastValue() {
+      return lastValue;
+   }
+
+   public int getMaxDepth() {
+      return maxDepth;
+   }
+
+}
@@ -0,0 +1,267 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// Trains an NTupleNetwork by TD(0) self-play on afterstates: each move is picked greedily on reward plus the
+// value of the position it leads to, and that value is pulled toward the next move's reward and afterstate value.
+// Workers share the network and update it Hogwild-style without locks; the weight tables are large and each
+// update touches few of them, so lost updates are rare and don't hurt learning.
+// Usage: TDTrainer [--games N] [--threads T] [--alpha A] [--tuples LAYOUT] [--weights FILE] [--out FILE]
+//                  [--checkpoint GAMES] [--report SECONDS] [--seed S]
+public class TDTrainer {
+
+   private static final Direction[] DIRECTIONS = Direction.values();
+
+   private final NTupleNetwork network;
+   // Learning rate split evenly over the weights of one evaluation
+   private final float alpha;
+   private final int threads;
+   private final long seed;
+   private Path checkpointPath;
+   private long checkpointInterval;
+   private PrintStream progress;
+   private Duration reportInterval = Duration.ofSeconds(10);
+
+   private final AtomicLong nextGame = new AtomicLong();
+   private final LongAdder finishedGames = new LongAdder();
+   private final LongAdder scoreSum = new LongAdder();
+   private final LongAdder moveSum = new LongAdder();
+   private final Object checkpointLock = new Object();
+   private volatile long checkpointedGames;
+
+   public TDTrainer(NTupleNetwork network, double alpha, int threads, long seed) {
+      if (network.isReadOnly())
+         throw new IllegalArgumentException("Can't train a memory-mapped network, load it instead");
+      if (alpha <= 0 || threads < 1)
+         throw new IllegalArgumentException("Learning rate and threads must be positive");
+      this.network = network;
+      this.alpha = (float) (alpha / network.getLookups());
+      this.threads = threads;
+      this.seed = seed;
+   }
+
+   // Saves the weights to path every interval games, and once more when training ends
+   public void setCheckpoint(Path checkpointPath, long interval) {
+      if (interval < 1)
+         throw new IllegalArgumentException("Checkpoint interval must be positive: " + interval);
+      this.checkpointPath = checkpointPath;
+      this.checkpointInterval = interval;
+   }
+
+   // Prints games per second and the mean score of the games finished since the last report
+   public void setProgress(PrintStream progress, Duration interval) {
+      this.progress = progress;
+      this.reportInterval = interval;
+   }
+
+   public NTupleNetwork getNetwork() {
+      return network;
+   }
+
+   public long getGames() {
+      return finishedGames.sum();
+   }
+
+   public double getMeanScore() {
+      long games = finishedGames.sum();
+      return games == 0 ? 0 : (double) scoreSum.sum() / games;
+   }
+
+   // Plays and learns from that many more games, can be called again to continue
+   public void train(long games) throws InterruptedException, IOException {
+      long end = nextGame.get() + games;
+      SplittableRandom seeds = new SplittableRandom(seed ^ end);
+      List<Future<?>> workers = new ArrayList<>();
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+         for (int i = 0; i < threads; i++) {
+            SpawnSource spawnSource = SpawnSource.of(seeds.split());
+            workers.add(executor.submit(() -> {
+               work(spawnSource, end);
+               return null;
+            }));
+         }
+         executor.shutdown();
+         report(executor);
+         for (Future<?> worker : workers) {
+            worker.get();
+         }
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof IOException io)
+            throw io;
+         throw new IllegalStateException("Training worker failed", e.getCause());
+      } finally {
+         executor.shutdownNow();
+      }
+      if (checkpointPath != null)
+         checkpoint();
+   }
+
+   private void report(ExecutorService executor) throws InterruptedException {
+      long reportNanos = reportInterval.toNanos();
+      long lastTime = System.nanoTime();
+      long lastGames = finishedGames.sum();
+      long lastScore = scoreSum.sum();
+      long lastMoves = moveSum.sum();
+      while (!executor.awaitTermination(reportNanos, TimeUnit.NANOSECONDS)) {
+         if (progress == null)
+            continue;
+         long now = System.nanoTime();
+         long games = finishedGames.sum();
+         long score = scoreSum.sum();
+         long moves = moveSum.sum();
+         long windowGames = games - lastGames;
+         double seconds = (now - lastTime) / 1e9;
+         progress.printf("games %,d  %,.0f games/s  %,.0f moves/s  mean score %,.0f%n", games, windowGames / seconds,
+               (moves - lastMoves) / seconds, windowGames == 0 ? 0.0 : (double) (score - lastScore) / windowGames);
+         lastTime = now;
+         lastGames = games;
+         lastScore = score;
+         lastMoves = moves;
+      }
+   }
+
+   private void work(SpawnSource spawnSource, long end) throws IOException {
+      while (nextGame.getAndIncrement() < end) {
+         playGame(spawnSource);
+         if (checkpointPath != null && finishedGames.sum() - checkpointedGames >= checkpointInterval)
+            checkpoint();
+      }
+   }
+
+   // Plays one game greedily on the current weights, learning after every move. Returns the score.
+   long playGame(SpawnSource spawnSource) {
+      long[] afterstates = new long[DIRECTIONS.length];
+      long[] rewards = new long[DIRECTIONS.length];
+      long board = BitBoard.spawn(0L, spawnSource);
+      long previousAfterstate = 0;
+      double previousValue = 0;
+      long score = 0;
+      long moves = 0;
+
+      while (true) {
+         long bestAfterstate = 0;
+         long bestReward = 0;
+         double bestValue = 0;
+         double bestTotal = Double.NEGATIVE_INFINITY;
+         for (int legal = BitBoard.afterstates(board, afterstates, rewards, 0); legal != 0; legal &= legal - 1) {
+            int direction = Integer.numberOfTrailingZeros(legal);
+            long afterstate = afterstates[direction];
+            long reward = rewards[direction];
+            double value = network.evaluate(afterstate);
+            if (reward + value > bestTotal) {
+               bestTotal = reward + value;
+               bestAfterstate = afterstate;
+               bestReward = reward;
+               bestValue = value;
+            }
+         }
+
+         boolean gameOver = bestTotal == Double.NEGATIVE_INFINITY;
+         if (moves > 0) {
+            double target = gameOver ? 0 : bestReward + bestValue;
+            network.update(previousAfterstate, (float) (alpha * (target - previousValue)));
+         }
+         if (gameOver)
+            break;
+
+         score += bestReward;
+         moves++;
+         previousAfterstate = bestAfterstate;
+         previousValue = bestValue;
+         board = BitBoard.spawn(bestAfterstate, spawnSource);
+      }
+
+      scoreSum.add(score);
+      moveSum.add(moves);
+      finishedGames.increment();
+      return score;
+   }
+
+   // Writes to a temporary file first so a crash mid-save keeps the previous checkpoint. Workers keep training
+   // meanwhile, so the saved weights are a blend of a few moments rather than a snapshot.
+   private void checkpoint() throws IOException {
+      synchronized (checkpointLock) {
+         long games = finishedGames.sum();
+         if (games == checkpointedGames)
+            return;
+         Path temporary = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+         network.save(temporary);
+         Files.move(temporary, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         checkpointedGames = games;
+         if (progress != null)
+            progress.printf("checkpoint %s after %,d games%n", checkpointPath, games);
+      }
+   }
+
+   public static void main(String[] args) throws IOException, InterruptedException {
+      long games = 100000;
+      int threads = Runtime.getRuntime().availableProcessors();
+      double alpha = 0.1;
+      String tuples = null;
+      String weights = null;
+      String out = "weights.bin";
+      long checkpoint = 10000;
+      long reportSeconds = 10;
+      long seed = System.nanoTime();
+
+      for (int i = 0; i < args.length; i++) {
+         String arg = args[i];
+         switch (arg) {
+            case "--games" -> games = Long.parseLong(value(args, ++i, arg));
+            case "--threads" -> threads = Integer.parseInt(value(args, ++i, arg));
+            case "--alpha" -> alpha = Double.parseDouble(value(args, ++i, arg));
+            case "--tuples" -> tuples = value(args, ++i, arg);
+            case "--weights" -> weights = value(args, ++i, arg);
+            case "--out" -> out = value(args, ++i, arg);
+            case "--checkpoint" -> checkpoint = Long.parseLong(value(args, ++i, arg));
+            case "--report" -> reportSeconds = Long.parseLong(value(args, ++i, arg));
+            case "--seed" -> seed = Long.parseLong(value(args, ++i, arg));
+            default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+         }
+      }
+
+      NTupleNetwork network;
+      if (weights != null)
+         network = NTupleNetwork.load(Path.of(weights));
+      else
+         network = new NTupleNetwork(tuples == null ? NTupleNetwork.DEFAULT_TUPLES : NTupleNetwork.parseTuples(tuples));
+
+      TDTrainer trainer = new TDTrainer(network, alpha, threads, seed);
+      trainer.setCheckpoint(Path.of(out), checkpoint);
+      trainer.setProgress(System.out, Duration.ofSeconds(reportSeconds));
+      System.out.printf("Training %s for %,d games on %d threads, alpha %s, seed %d%n", network, games, threads,
+            alpha, seed);
+      long start = System.nanoTime();
+      trainer.train(games);
+      double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("Trained %,d games in %.1f s (%,.0f games/s), mean score %,.0f%n", trainer.getGames(),
+            elapsedSeconds, trainer.getGames() / elapsedSeconds, trainer.getMeanScore());
+   }
+
+   private static String value(String[] args, int index, String name) {
+      if (index >= args.length)
+         throw new IllegalArgumentException("Missing value for " + name);
+      return args[index];
+   }
+
+}
@@ -0,0 +1,93 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import java.util.concurrent.locks.StampedLock;
+
+// Direct-mapped and lock-striped, so it can be shared by parallel searches
+public class TranspositionTable {
+
+   private static final int STRIPES = 64;
+
+   private final long[] keys;
+   private final double[] values;
+   // Remaining search depth of each entry, 0 marking an empty slot
+   private final byte[] depths;
+   private final int mask;
+   private final StampedLock[] locks = new StampedLock[STRIPES];
+
+   public TranspositionTable(int capacity) {
+      if (capacity <= 0)
+         throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+      int size = Integer.highestOneBit(capacity);
+      if (size < capacity)
+         size <<= 1;
+      keys = new long[size];
+      values = new double[size];
+      depths = new byte[size];
+      mask = size - 1;
+      for (int i = 0; i < STRIPES; i++) {
+         locks[i] = new StampedLock();
+      }
+   }
+
+   // Returns the stored value, or NaN when the board isn't stored at exactly this depth
+   public double get(long board, int depth) {
+      int slot = slot(board);
+      StampedLock lock = locks[slot & (STRIPES - 1)];
+
+      long stamp = lock.tryOptimisticRead();
+      long key = keys[slot];
+      byte storedDepth = depths[slot];
+      double value = values[slot];
+      if (!lock.validate(stamp)) {
+         stamp = lock.readLock();
+         try {
+            key = keys[slot];
+            storedDepth = depths[slot];
+            value = values[slot];
+         } finally {
+            lock.unlockRead(stamp);
+         }
+      }
+
+      if (storedDepth == depth + 1 && key == board)
+         return value;
+      return Double.NaN;
+   }
+
+   public void put(long board, int depth, double value) {
+      int slot = slot(board);
+      StampedLock lock = locks[slot & (STRIPES - 1)];
+
+      long stamp = lock.writeLock();
+      try {
+         keys[slot] = board;
+         values[slot] = value;
+         depths[slot] = (byte) (depth + 1);
+      } finally {
+         lock.unlockWrite(stamp);
+      }
+   }
+
+   public void clear() {
+      for (int stripe = 0; stripe < STRIPES; stripe++) {
+         long stamp = locks[stripe].writeLock();
+         try {
+            for (int slot = stripe; slot < depths.length; slot += STRIPES) {
+               depths[slot] = 0;
+            }
+         } finally {
+            locks[stripe].unlockWrite(stamp);
+         }
+      }
+   }
+
+   public int capacity() {
+      return keys.length;
+   }
+
+   private int slot(long board) {
+      long hash = board * 0x9E3779B97F4A7C15L;
+      return (int) (hash ^ (hash >>> 32)) & mask;
+   }
+
+}
@@ -0,0 +1,234 @@
+package com.jonataneckeskog.game._2048.env;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Blocking client for EnvironmentServer, keeping the latest result of every game.
+// Its main measures steps per second over a local socket.
+// Usage: EnvironmentClient [--address host:port|unix:path] [--games K] [--size N] [--steps S]
+public class EnvironmentClient implements Closeable {
+
+   private final SocketChannel channel;
+   private ByteBuffer request = ByteBuffer.allocate(64);
+   private ByteBuffer response = ByteBuffer.allocate(64);
+
+   private int games;
+   private int sidelength;
+   private int cells;
+   private long[] rewards;
+   private byte[] flags;
+   private byte[] observations;
+
+   public EnvironmentClient(SocketAddress address) throws IOException {
+      if (address instanceof UnixDomainSocketAddress) {
+         channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+      } else {
+         channel = SocketChannel.open();
+         channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      }
+      channel.connect(address);
+   }
+
+   // Replaces the connection's games with a new batch spawned from seed
+   public void reset(int games, int sidelength, long seed) throws IOException {
+      begin(Protocol.RESET, 13).putInt(games).put((byte) sidelength).putLong(seed);
+      call();
+      this.games = games;
+      this.sidelength = sidelength;
+      this.cells = sidelength * sidelength;
+      rewards = new long[games];
+      flags = new byte[games];
+      observations = new byte[games * cells];
+      request = ByteBuffer.allocate(5 + games);
+      response.get(observations);
+   }
+
+   public void step(int game, Direction direction) throws IOException {
+      begin(Protocol.STEP, 5).putInt(game).put(code(direction));
+      call();
+      rewards[game] = response.getLong();
+      flags[game] = response.get();
+      response.get(observations, game * cells, cells);
+   }
+
+   // Plays directions[g] in game g, a null direction leaves the game as it is
+   public void batchStep(Direction[] directions) throws IOException {
+      if (directions.length != games)
+         throw new IllegalArgumentException("Expected " + games + " directions, got " + directions.length);
+      ByteBuffer buffer = begin(Protocol.BATCH_STEP, games);
+      for (Direction direction : directions) {
+         buffer.put(code(direction));
+      }
+      call();
+      for (int game = 0; game < games; game++) {
+         rewards[game] = response.getLong();
+      }
+      response.get(flags);
+      response.get(observations);
+   }
+
+   public void resetGame(int game) throws IOException {
+      begin(Protocol.RESET_GAME, 4).putInt(game);
+      call();
+      rewards[game] = 0;
+      flags[game] = 0;
+      response.get(observations, game * cells, cells);
+   }
+
+   private ByteBuffer begin(byte opcode, int payload) {
+      if (request.capacity() < 5 + payload)
+         request = ByteBuffer.allocate(5 + payload);
+      return request.clear().putInt(1 + payload).put(opcode);
+   }
+
+   private void call() throws IOException {
+      request.flip();
+      while (request.hasRemaining()) {
+         channel.write(request);
+      }
+
+      response.clear().limit(4);
+      readFully();
+      int length = response.getInt(0);
+      if (length < 1 || length > Protocol.MAX_FRAME)
+         throw new IOException("Invalid frame length " + length);
+      if (response.capacity() < length)
+         response = ByteBuffer.allocate(length);
+      response.clear().limit(length);
+      readFully();
+      response.flip();
+
+      if (response.get() == Protocol.ERROR) {
+         byte[] message = new byte[response.remaining()];
+         response.get(message);
+         throw new IOException("Environment server error: " + new String(message, StandardCharsets.UTF_8));
+      }
+   }
+
+   private void readFully() throws IOException {
+      while (response.hasRemaining()) {
+         if (channel.read(response) < 0)
+            throw new EOFException("Environment server closed the connection");
+      }
+   }
+
+   private static byte code(Direction direction) {
+      return direction == null ? Protocol.SKIP : (byte) direction.ordinal();
+   }
+
+   public int getGames() {
+      return games;
+   }
+
+   public int getSidelength() {
+      return sidelength;
+   }
+
+   public long getReward(int game) {
+      return rewards[game];
+   }
+
+   public boolean isMoved(int game) {
+      return (flags[game] & Protocol.MOVED) != 0;
+   }
+
+   public boolean isDone(int game) {
+      return (flags[game] & Protocol.DONE) != 0;
+   }
+
+   public int getExponent(int game, int row, int column) {
+      return observations[game * cells + row * sidelength + column];
+   }
+
+   // Exponents of every game back to back, row-major, updated in place by each call
+   public byte[] getObservations() {
+      return observations;
+   }
+
+   @Override
+   public void close() throws IOException {
+      channel.close();
+   }
+
+   public static void main(String[] args) throws IOException {
+      String address = null;
+      int games = 256;
+      int sidelength = 4;
+      long steps = 2_000_000;
+      for (int i = 0; i < args.length; i++) {
+         String arg = args[i];
+         if (i + 1 >= args.length)
+            throw new IllegalArgumentException("Missing value for " + arg);
+         switch (arg) {
+            case "--address" -> address = args[++i];
+            case "--games" -> games = Integer.parseInt(args[++i]);
+            case "--size" -> sidelength = Integer.parseInt(args[++i]);
+            case "--steps" -> steps = Long.parseLong(args[++i]);
+            default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+         }
+      }
+
+      // Without an address, benchmark against a server in this process over loopback
+      EnvironmentServer server = null;
+      SocketAddress target;
+      if (address == null) {
+         server = new EnvironmentServer(new InetSocketAddress("127.0.0.1", 0));
+         server.start();
+         target = server.getAddress();
+      } else {
+         target = Protocol.parseAddress(address);
+      }
+
+      try (EnvironmentClient client = new EnvironmentClient(target)) {
+         SplittableRandom random = new SplittableRandom(2048);
+         Direction[] values = Direction.values();
+
+         client.reset(1, sidelength, 1);
+         long single = steps / 20;
+         long start = System.nanoTime();
+         for (long step = 0; step < single; step++) {
+            client.step(0, values[random.nextInt(values.length)]);
+            if (client.isDone(0))
+               client.resetGame(0);
+         }
+         report("step", single, single, System.nanoTime() - start);
+
+         client.reset(games, sidelength, 1);
+         Direction[] directions = new Direction[games];
+         long calls = Math.max(1, steps / games);
+         start = System.nanoTime();
+         for (long call = 0; call < calls; call++) {
+            for (int game = 0; game < games; game++) {
+               directions[game] = values[random.nextInt(values.length)];
+            }
+            client.batchStep(directions);
+            for (int game = 0; game < games; game++) {
+               if (client.isDone(game))
+                  client.resetGame(game);
+            }
+         }
+         report("batch step of " + games, calls * games, calls, System.nanoTime() - start);
+      } finally {
+         if (server != null)
+            server.close();
+      }
+   }
+
+   private static void report(String name, long steps, long calls, long nanos) {
+      System.out.printf("%-20s %,12d steps in %6.2f s  %,12.0f steps/s  %8.2f us/call%n", name, steps, nanos / 1e9,
+            steps * 1e9 / nanos, nanos / 1e3 / calls);
+   }
+
+}
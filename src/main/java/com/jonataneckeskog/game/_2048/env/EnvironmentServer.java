@@ -0,0 +1,246 @@
+package com.jonataneckeskog.game._2048.env;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.jonataneckeskog.game._2048.game.BoardBatch;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// Headless games for training loops in another process, see Protocol for the wire format.
+// Every connection gets its own virtual thread and its own batch of games.
+// Usage: EnvironmentServer [--address host:port|unix:path]
+public class EnvironmentServer implements Closeable {
+
+   private static final Direction[] DIRECTIONS = Direction.values();
+
+   private final ServerSocketChannel server;
+   private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+   private final Path socketPath;
+
+   public EnvironmentServer(SocketAddress address) throws IOException {
+      if (address instanceof UnixDomainSocketAddress unix) {
+         socketPath = unix.getPath();
+         Files.deleteIfExists(socketPath);
+         server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+      } else {
+         socketPath = null;
+         server = ServerSocketChannel.open();
+      }
+      server.bind(address);
+   }
+
+   public SocketAddress getAddress() throws IOException {
+      return server.getLocalAddress();
+   }
+
+   public void start() {
+      executor.execute(this::acceptLoop);
+   }
+
+   private void acceptLoop() {
+      try {
+         while (true) {
+            SocketChannel channel = server.accept();
+            executor.execute(() -> serve(channel));
+         }
+      } catch (ClosedChannelException e) {
+         // Closed by close()
+      } catch (IOException e) {
+         System.err.println("Environment server stopped accepting: " + e);
+      }
+   }
+
+   private void serve(SocketChannel channel) {
+      try (channel) {
+         if (channel.getRemoteAddress() instanceof InetSocketAddress)
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+         new Session(channel).run();
+      } catch (EOFException | ClosedChannelException e) {
+         // Client went away
+      } catch (IOException e) {
+         System.err.println("Environment connection failed: " + e);
+      }
+   }
+
+   @Override
+   public void close() throws IOException {
+      server.close();
+      executor.shutdownNow();
+      if (socketPath != null)
+         Files.deleteIfExists(socketPath);
+   }
+
+   // The games of one connection and its reusable buffers
+   private static class Session {
+      private final SocketChannel channel;
+      private final ByteBuffer header = ByteBuffer.allocate(4);
+      private ByteBuffer request = ByteBuffer.allocate(64);
+      private ByteBuffer response = ByteBuffer.allocate(64);
+      private BoardBatch batch;
+      private Direction[] directions;
+      private boolean[] moved;
+      private long[] rewards;
+      private boolean[] done;
+      private int cells;
+
+      Session(SocketChannel channel) {
+         this.channel = channel;
+      }
+
+      void run() throws IOException {
+         while (true) {
+            header.clear();
+            readFully(header);
+            int length = header.getInt(0);
+            if (length < 1 || length > Protocol.MAX_FRAME)
+               throw new IOException("Invalid frame length " + length);
+
+            if (request.capacity() < length)
+               request = ByteBuffer.allocate(length);
+            request.clear().limit(length);
+            readFully(request);
+            request.flip();
+
+            response.clear().position(4);
+            response.put(Protocol.OK);
+            try {
+               handle(request.get());
+            } catch (RuntimeException e) {
+               writeError(e);
+            }
+            response.putInt(0, response.position() - 4).flip();
+            while (response.hasRemaining()) {
+               channel.write(response);
+            }
+         }
+      }
+
+      private void writeError(RuntimeException e) {
+         String message = e.getMessage() != null ? e.getMessage() : e.toString();
+         byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+         if (response.capacity() < 5 + bytes.length)
+            response = ByteBuffer.allocate(5 + bytes.length);
+         response.clear().position(4);
+         response.put(Protocol.ERROR).put(bytes);
+      }
+
+      private void readFully(ByteBuffer buffer) throws IOException {
+         while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+               throw new EOFException();
+         }
+      }
+
+      private void handle(byte opcode) {
+         switch (opcode) {
+            case Protocol.RESET -> reset(request.getInt(), request.get(), request.getLong());
+            case Protocol.STEP -> step(request.getInt(), request.get());
+            case Protocol.BATCH_STEP -> batchStep();
+            case Protocol.RESET_GAME -> resetGame(request.getInt());
+            default -> throw new IllegalArgumentException("Unknown opcode " + opcode);
+         }
+      }
+
+      private void reset(int games, int sidelength, long seed) {
+         if (games < 1 || sidelength < 2 || (long) games * sidelength * sidelength * 10 > Protocol.MAX_FRAME)
+            throw new IllegalArgumentException("Invalid batch of " + games + " games with sidelength " + sidelength);
+         batch = new BoardBatch(games, sidelength, SpawnSource.seeded(seed));
+         cells = sidelength * sidelength;
+         directions = new Direction[games];
+         moved = new boolean[games];
+         rewards = new long[games];
+         done = new boolean[games];
+         // Large enough for a batch step: a reward, a flag byte and an observation per game
+         response = ByteBuffer.allocate(5 + games * (9 + cells)).put(4, Protocol.OK).position(5);
+
+         for (int game = 0; game < games; game++) {
+            writeObservation(game);
+         }
+      }
+
+      private void step(int game, byte direction) {
+         if (direction == Protocol.SKIP)
+            throw new IllegalArgumentException("SKIP is only valid in BATCH_STEP, STEP needs a direction");
+         long reward = batch().step(game, direction(direction));
+         int flags = (reward >= 0 ? Protocol.MOVED : 0) | (batch.isGameOver(game) ? Protocol.DONE : 0);
+         response.putLong(Math.max(reward, 0)).put((byte) flags);
+         writeObservation(game);
+      }
+
+      private void batchStep() {
+         int games = batch().getGames();
+         if (request.remaining() != games)
+            throw new IllegalArgumentException("Expected " + games + " directions, got " + request.remaining());
+         for (int game = 0; game < games; game++) {
+            directions[game] = direction(request.get());
+         }
+
+         batch.step(directions, moved, rewards, done);
+         for (int game = 0; game < games; game++) {
+            response.putLong(rewards[game]);
+         }
+         for (int game = 0; game < games; game++) {
+            response.put((byte) ((moved[game] ? Protocol.MOVED : 0) | (done[game] ? Protocol.DONE : 0)));
+         }
+         for (int game = 0; game < games; game++) {
+            writeObservation(game);
+         }
+      }
+
+      private void resetGame(int game) {
+         batch().reset(game);
+         writeObservation(game);
+      }
+
+      private void writeObservation(int game) {
+         batch.copyTiles(game, response.array(), response.position());
+         response.position(response.position() + cells);
+      }
+
+      private BoardBatch batch() {
+         if (batch == null)
+            throw new IllegalStateException("RESET has to come before any step");
+         return batch;
+      }
+
+      private static Direction direction(byte code) {
+         if (code == Protocol.SKIP)
+            return null;
+         if (code < 0 || code >= DIRECTIONS.length)
+            throw new IllegalArgumentException("Invalid direction " + code);
+         return DIRECTIONS[code];
+      }
+   }
+
+   public static void main(String[] args) throws IOException, InterruptedException {
+      String address = "127.0.0.1:2048";
+      for (int i = 0; i < args.length; i++) {
+         if (args[i].equals("--address") && i + 1 < args.length)
+            address = args[++i];
+         else
+            throw new IllegalArgumentException("Unknown argument: " + args[i]);
+      }
+
+      EnvironmentServer server = new EnvironmentServer(Protocol.parseAddress(address));
+      server.start();
+      System.err.println("Serving 2048 environments on " + server.getAddress());
+      Thread.currentThread().join();
+   }
+
+}
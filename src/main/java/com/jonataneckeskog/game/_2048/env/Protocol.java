@@ -0,0 +1,51 @@
+package com.jonataneckeskog.game._2048.env;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+
+// Wire format shared by EnvironmentServer and EnvironmentClient. All numbers are big-endian.
+//
+// Request:  int length, byte opcode, payload        (length counts the opcode and payload)
+// Response: int length, byte status, payload        (length counts the status and payload)
+//
+// RESET       int games, byte sidelength, long seed -> games * cells observation bytes
+// STEP        int game, byte direction              -> long reward, byte flags, cells observation bytes
+// BATCH_STEP  games direction bytes                 -> games longs of rewards, games flag bytes, observations
+// RESET_GAME  int game                              -> cells observation bytes
+//
+// Observations are tile exponents, one byte per cell in row-major order and 0 for an empty cell.
+// Directions are Direction ordinals, SKIP leaves a game untouched in BATCH_STEP and is an error in STEP.
+// An ERROR response carries a UTF-8 message.
+final class Protocol {
+
+   static final byte RESET = 1;
+   static final byte STEP = 2;
+   static final byte BATCH_STEP = 3;
+   static final byte RESET_GAME = 4;
+
+   static final byte OK = 0;
+   static final byte ERROR = 1;
+
+   static final byte SKIP = (byte) 0xFF;
+
+   static final int MOVED = 1;
+   static final int DONE = 2;
+
+   // Keeps a bad length prefix from allocating gigabytes
+   static final int MAX_FRAME = 1 << 26;
+
+   private Protocol() {
+   }
+
+   // "unix:/path/to/socket" or "host:port"
+   static SocketAddress parseAddress(String address) {
+      if (address.startsWith("unix:"))
+         return UnixDomainSocketAddress.of(address.substring("unix:".length()));
+      int colon = address.lastIndexOf(':');
+      if (colon < 0)
+         throw new IllegalArgumentException("Address must be host:port or unix:path, got " + address);
+      return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+   }
+
+}
@@ -0,0 +1,314 @@
+package com.jonataneckeskog.game._2048.game;
+
+public class BitBoard {
+
+   public static final int SIDELENGTH = 4;
+   public static final int MAX_EXPONENT = 15;
+
+   private static final long ROW_MASK = 0xFFFFL;
+   private static final long NIBBLE_LOW_BITS = 0x1111111111111111L;
+
+   // Row results indexed by the 16-bit row, column 0 in the lowest nibble
+   private static final char[] ROW_LEFT = new char[65536];
+   private static final char[] ROW_RIGHT = new char[65536];
+   // Merge reward of a row, the same in both directions since a run of equal tiles pairs up equally often
+   private static final int[] ROW_REWARDS = new int[65536];
+
+   static {
+      for (int row = 0; row < 65536; row++) {
+         int[] line = {
+               row & 0xF,
+               (row >> 4) & 0xF,
+               (row >> 8) & 0xF,
+               (row >> 12) & 0xF };
+
+         int[] result = new int[SIDELENGTH];
+         int size = 0;
+         int pending = 0;
+         int reward = 0;
+         for (int exponent : line) {
+            if (exponent == 0)
+               continue;
+            // Two 32768 tiles can't be merged since the result doesn't fit in a nibble
+            if (pending == exponent && exponent != MAX_EXPONENT) {
+               result[size - 1] = exponent + 1;
+               reward += 1 << (exponent + 1);
+               pending = 0;
+            } else {
+               result[size++] = exponent;
+               pending = exponent;
+            }
+         }
+
+         ROW_LEFT[row] = (char) (result[0] | result[1] << 4 | result[2] << 8 | result[3] << 12);
+         ROW_REWARDS[row] = reward;
+      }
+
+      for (int row = 0; row < 65536; row++) {
+         ROW_RIGHT[row] = reverseRow(ROW_LEFT[reverseRow(row)]);
+      }
+   }
+
+   private long board;
+   private SpawnSource spawnSource;
+
+   public BitBoard() {
+      this(SpawnSource.threadLocal());
+   }
+
+   public BitBoard(SpawnSource spawnSource) {
+      this(0L, spawnSource);
+      fillRandomEmptyCell();
+   }
+
+   private BitBoard(long board, SpawnSource spawnSource) {
+      this.board = board;
+      this.spawnSource = spawnSource;
+   }
+
+   public static BitBoard fromBits(long board) {
+      return new BitBoard(board, SpawnSource.threadLocal());
+   }
+
+   public SpawnSource getSpawnSource() {
+      return spawnSource;
+   }
+
+   public void setSpawnSource(SpawnSource spawnSource) {
+      this.spawnSource = spawnSource;
+   }
+
+   public long getBits() {
+      return board;
+   }
+
+   public boolean update(char directionChar) {
+      boolean moved = move(directionChar);
+      if (moved)
+         fillRandomEmptyCell();
+      return !isGameOver();
+   }
+
+   public boolean move(char c) {
+      Direction dir = Direction.fromChar(c);
+      if (dir == null) {
+         throw new IllegalArgumentException("Invalid direction: " + c);
+      }
+      return move(dir);
+   }
+
+   public boolean move(Direction dir) {
+      long moved = move(board, dir);
+      if (moved == board)
+         return false;
+      board = moved;
+      return true;
+   }
+
+   public boolean isGameOver() {
+      return isGameOver(board);
+   }
+
+   public void fillRandomEmptyCell() {
+      board = spawn(board, spawnSource);
+   }
+
+   // Fills the k-th empty nibble, matching the cell Board picks for the same source
+   public static long spawn(long board, SpawnSource spawnSource) {
+      long empty = emptyMask(board);
+      int emptyCount = Long.bitCount(empty);
+      if (emptyCount == 0)
+         return board;
+
+      int bit = Board.selectBit(empty, spawnSource.nextPosition(emptyCount));
+      return board | (long) spawnSource.nextExponent() << bit;
+   }
+
+   public int getExponent(int row, int column) {
+      if (row < 0 || row >= SIDELENGTH || column < 0 || column >= SIDELENGTH)
+         throw new IndexOutOfBoundsException(
+               "Position" + new BoardPosition(row, column) + "is out of bounds");
+      return getExponent(board, row * SIDELENGTH + column);
+   }
+
+   public int getNumberOfEmptyCells() {
+      return countEmpty(board);
+   }
+
+   public static long move(long board, Direction dir) {
+      return switch (dir) {
+         case LEFT -> moveRows(board, ROW_LEFT);
+         case RIGHT -> moveRows(board, ROW_RIGHT);
+         case UP -> transpose(moveRows(transpose(board), ROW_LEFT));
+         case DOWN -> transpose(moveRows(transpose(board), ROW_RIGHT));
+      };
+   }
+
+   // Writes the board after each of the four moves to afterstates[offset + direction.ordinal()], and the merge
+   // reward to the same slot of rewards unless it is null. Returns the legal moves as a mask of ordinal bits.
+   // Every row and column is looked up once for both of its directions.
+   public static int afterstates(long board, long[] afterstates, long[] rewards, int offset) {
+      long transposed = transpose(board);
+      long left = 0L;
+      long right = 0L;
+      long up = 0L;
+      long down = 0L;
+      long horizontalReward = 0;
+      long verticalReward = 0;
+      for (int row = 0; row < SIDELENGTH; row++) {
+         int shift = 16 * row;
+         int rowBits = (int) ((board >>> shift) & ROW_MASK);
+         int columnBits = (int) ((transposed >>> shift) & ROW_MASK);
+         left |= (long) ROW_LEFT[rowBits] << shift;
+         right |= (long) ROW_RIGHT[rowBits] << shift;
+         up |= (long) ROW_LEFT[columnBits] << shift;
+         down |= (long) ROW_RIGHT[columnBits] << shift;
+         horizontalReward += ROW_REWARDS[rowBits];
+         verticalReward += ROW_REWARDS[columnBits];
+      }
+      up = transpose(up);
+      down = transpose(down);
+
+      afterstates[offset + Direction.UP.ordinal()] = up;
+      afterstates[offset + Direction.DOWN.ordinal()] = down;
+      afterstates[offset + Direction.RIGHT.ordinal()] = right;
+      afterstates[offset + Direction.LEFT.ordinal()] = left;
+      if (rewards != null) {
+         rewards[offset + Direction.UP.ordinal()] = verticalReward;
+         rewards[offset + Direction.DOWN.ordinal()] = verticalReward;
+         rewards[offset + Direction.RIGHT.ordinal()] = horizontalReward;
+         rewards[offset + Direction.LEFT.ordinal()] = horizontalReward;
+      }
+
+      int legal = 0;
+      if (up != board)
+         legal |= 1 << Direction.UP.ordinal();
+      if (down != board)
+         legal |= 1 << Direction.DOWN.ordinal();
+      if (right != board)
+         legal |= 1 << Direction.RIGHT.ordinal();
+      if (left != board)
+         legal |= 1 << Direction.LEFT.ordinal();
+      return legal;
+   }
+
+   private static long moveRows(long board, char[] table) {
+      long result = 0L;
+      for (int row = 0; row < SIDELENGTH; row++) {
+         int shift = 16 * row;
+         result |= (long) table[(int) ((board >>> shift) & ROW_MASK)] << shift;
+      }
+      return result;
+   }
+
+   public static boolean isGameOver(long board) {
+      if (countEmpty(board) != 0)
+         return false;
+      return !hasMergeableRow(board) && !hasMergeableRow(transpose(board));
+   }
+
+   private static boolean hasMergeableRow(long board) {
+      for (int row = 0; row < SIDELENGTH; row++) {
+         int bits = (int) ((board >>> (16 * row)) & ROW_MASK);
+         if (ROW_LEFT[bits] != bits)
+            return true;
+      }
+      return false;
+   }
+
+   public static int countEmpty(long board) {
+      return Long.bitCount(emptyMask(board));
+   }
+
+   // One bit set at the lowest position of every empty nibble
+   public static long emptyMask(long board) {
+      long x = board | (board >>> 1);
+      x |= x >>> 2;
+      return ~x & NIBBLE_LOW_BITS;
+   }
+
+   public static int getExponent(long board, int index) {
+      return (int) ((board >>> (4 * index)) & 0xF);
+   }
+
+   public static long transpose(long x) {
+      long a1 = x & 0xF0F00F0FF0F00F0FL;
+      long a2 = x & 0x0000F0F00000F0F0L;
+      long a3 = x & 0x0F0F00000F0F0000L;
+      long a = a1 | (a2 << 12) | (a3 >>> 12);
+      long b1 = a & 0xFF00FF0000FF00FFL;
+      long b2 = a & 0x00FF00FF00000000L;
+      long b3 = a & 0x00000000FF00FF00L;
+      return b1 | (b2 >>> 24) | (b3 << 24);
+   }
+
+   private static char reverseRow(int row) {
+      return (char) (((row & 0xF) << 12) | ((row & 0xF0) << 4) | ((row >> 4) & 0xF0) | ((row >> 12) & 0xF));
+   }
+
+   public static BitBoard fromBoard(Board board) {
+      if (board.getSidelength() != SIDELENGTH)
+         throw new IllegalArgumentException(
+               "Only boards with sidelength " + SIDELENGTH + " fit in a bitboard, got " + board.getSidelength());
+
+      long bits = 0L;
+      for (int row = 0; row < SIDELENGTH; row++) {
+         for (int column = 0; column < SIDELENGTH; column++) {
+            int exponent = board.getExponent(row, column);
+            if (exponent > MAX_EXPONENT)
+               throw new IllegalArgumentException(
+                     "Tile exponent " + exponent + " is too large for a bitboard (max " + MAX_EXPONENT + ")");
+            bits |= (long) exponent << (4 * (row * SIDELENGTH + column));
+         }
+      }
+      return new BitBoard(bits, board.getSpawnSource());
+   }
+
+   public Board toBoard() {
+      Board result = Board.empty(SIDELENGTH, spawnSource);
+      for (int row = 0; row < SIDELENGTH; row++) {
+         for (int column = 0; column < SIDELENGTH; column++) {
+            int exponent = getExponent(board, row * SIDELENGTH + column);
+            Cell cell = exponent == 0 ? Cell.emptyCell() : new Cell(1 << exponent);
+            result.setCell(cell, new BoardPosition(row, column));
+         }
+      }
+      return result;
+   }
+
+   public static BitBoard buildFromString(String boardString) {
+      return fromBoard(Board.buildFromString(boardString));
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj)
+         return true;
+      if (obj == null || getClass() != obj.getClass())
+         return false;
+      return board == ((BitBoard) obj).board;
+   }
+
+   @Override
+   public int hashCode() {
+      return Long.hashCode(board);
+   }
+
+   @Override
+   public String toString() {
+      StringBuilder stringBuilder = new StringBuilder();
+      stringBuilder.append("\n");
+      for (int row = 0; row < SIDELENGTH; row++) {
+         for (int column = 0; column < SIDELENGTH; column++) {
+            String string = String.valueOf(getExponent(board, row * SIDELENGTH + column));
+            stringBuilder.append(string);
+            for (int i = 0; i < 4 - string.length(); i++) {
+               stringBuilder.append(" ");
+            }
+         }
+         stringBuilder.append("\n");
+      }
+      return stringBuilder.toString();
+   }
+
+}
@@ -1,65 +1,113 @@
 package com.jonataneckeskog.game._2048.game;
 
-import java.util.List;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Random;
+import java.util.Arrays;
 import java.util.function.Consumer;
 
+import com.jonataneckeskog.game._2048.metrics.BoardMetrics;
+
 public class Board {
 
-   private Cell[][] board;
-   private HashSet<BoardPosition> emptyCells;
-   private int sidelength;
+   // Smallest boards worth handing to a vectorized MoveKernel
+   static final int KERNEL_MIN_SIDELENGTH = 16;
+   private static final MoveKernel KERNEL = MoveKernel.best();
+
+   // Tile exponents in row-major order, 0 meaning empty
+   private final byte[] tiles;
+   // One bit per cell in row-major order, set while the cell is empty
+   private final long[] emptyCells;
+   private int emptyCount;
+   // Adjacent pairs of equal tiles, kept up to date on every write
+   private int mergeablePairs;
+   private final byte[] line;
+   private byte[] kernelOut;
+   private byte[] afterstateLine;
+   // Precomputed line moves, null unless line tables are enabled and cover this sidelength
+   private final LineTable lineTable;
+   // XOR of the Zobrist keys of every tile, see Zobrist
+   private final long[] zobristTable;
+   private long zobristHash;
+   private SpawnSource spawnSource;
+   private BoardListener[] listeners = new BoardListener[0];
+   // Cells changed by the last move, only recorded once a listener has been added
+   private int[] changedCells;
+   private int changedCount;
+   private final int sidelength;
+   private long score;
 
    public Board() {
       this(4);
    }
 
    public Board(int sidelength) {
+      this(sidelength, SpawnSource.threadLocal());
+   }
+
+   public Board(int sidelength, SpawnSource spawnSource) {
+      this(sidelength, spawnSource, true);
+   }
+
+   private Board(int sidelength, SpawnSource spawnSource, boolean spawn) {
       this.sidelength = sidelength;
-      board = new Cell[sidelength][sidelength];
-      emptyCells = new HashSet<>();
+      this.spawnSource = spawnSource;
+      int size = sidelength * sidelength;
+      tiles = new byte[size];
+      emptyCells = new long[(size + 63) >>> 6];
+      line = new byte[sidelength];
+      zobristTable = Zobrist.table(sidelength);
+      lineTable = LineTable.forSidelength(sidelength);
       initializeBoard();
-      fillRandomEmptyCell();
+      if (spawn)
+         fillRandomEmptyCell();
+   }
+
+   // A board without the initial tile, leaving the spawn source untouched
+   public static Board empty(int sidelength, SpawnSource spawnSource) {
+      return new Board(sidelength, spawnSource, false);
    }
 
    private void initializeBoard() {
-      for (int row = 0; row < sidelength; row++) {
-         for (int column = 0; column < sidelength; column++) {
-            board[row][column] = Cell.emptyCell();
-            emptyCells.add(new BoardPosition(row, column));
-         }
-      }
+      Arrays.fill(emptyCells, -1L);
+      int unused = emptyCells.length * 64 - tiles.length;
+      if (unused != 0)
+         emptyCells[emptyCells.length - 1] >>>= unused;
+      emptyCount = tiles.length;
    }
 
    public boolean update(char directionChar) {
-      boolean moved = move(directionChar);
+      Direction dir = Direction.fromChar(directionChar);
+      if (dir == null) {
+         throw new IllegalArgumentException("Invalid direction: " + directionChar);
+      }
+      return update(dir);
+   }
+
+   public boolean update(Direction direction) {
+      if (BoardMetrics.ENABLED) {
+         BoardMetrics.Recorder metrics = BoardMetrics.recorder();
+         long start = metrics.beginUpdate();
+         boolean running = step(direction);
+         metrics.endUpdate(start, this, running);
+         return running;
+      }
+      return step(direction);
+   }
+
+   private boolean step(Direction direction) {
+      boolean moved = move(direction);
       if (moved)
          fillRandomEmptyCell();
       return !isGameOver();
    }
 
    public boolean isGameOver() {
-      if (!emptyCells.isEmpty())
-         return false;
-
-      for (int row = 0; row < sidelength; row++) {
-         for (int column = 0; column < sidelength; column++) {
-            BoardPosition position = new BoardPosition(row, column);
-            Cell cell = getCell(position);
-
-            for (Direction direction : Direction.values()) {
-               BoardPosition newPosition = position.getAssociatedPosition(direction);
-               if (!isPositionInBounds(newPosition))
-                  continue;
-               if (cell.canMerge(getCell(newPosition)))
-                  return false;
-            }
-         }
+      if (BoardMetrics.ENABLED) {
+         BoardMetrics.Recorder metrics = BoardMetrics.recorder();
+         long start = metrics.beginGameOverCheck();
+         boolean gameOver = emptyCount == 0 && mergeablePairs == 0;
+         metrics.endGameOverCheck(start);
+         return gameOver;
       }
-
-      return true;
+      return emptyCount == 0 && mergeablePairs == 0;
    }
 
    public boolean move(char c) {
@@ -67,46 +115,159 @@ public class Board {
       if (dir == null) {
          throw new IllegalArgumentException("Invalid direction: " + c);
       }
-      return slideAndMerge(dir);
+      return move(dir);
    }
 
-   private boolean slideAndMerge(Direction dir) {
-      boolean moved = false;
+   public boolean move(Direction direction) {
+      boolean moved;
+      if (BoardMetrics.ENABLED) {
+         BoardMetrics.Recorder metrics = BoardMetrics.recorder();
+         long start = metrics.beginMove();
+         moved = slideAndMerge(direction);
+         metrics.endMove(start, this, direction, moved);
+      } else {
+         moved = slideAndMerge(direction);
+      }
+      if (moved) {
+         for (BoardListener listener : listeners) {
+            listener.moved(this, direction);
+            listener.cellsChanged(this, changedCells, changedCount);
+         }
+      }
+      return moved;
+   }
+
+   // Checks whether a move would change the board without making it
+   public boolean canMove(Direction dir) {
       boolean horizontal = dir.isHorizontal();
       boolean forward = (dir == Direction.DOWN || dir == Direction.RIGHT);
+      int step = horizontal ? 1 : sidelength;
+      if (forward)
+         step = -step;
+
+      for (int lineIndex = 0; lineIndex < sidelength; lineIndex++) {
+         int start = lineStart(sidelength, lineIndex, horizontal, forward);
+         byte previous = tiles[start];
+         for (int i = 1, index = start + step; i < sidelength; i++, index += step) {
+            byte exponent = tiles[index];
+            if (exponent != 0 && (previous == 0 || previous == exponent))
+               return true;
+            previous = exponent;
+         }
+      }
+      return false;
+   }
 
-      for (int line = 0; line < sidelength; line++) {
-         List<Cell> values = new ArrayList<>();
-
-         // Extract non-empty cells in swipe order
-         for (int i = 0; i < sidelength; i++) {
-            int row = horizontal ? line : (forward ? sidelength - 1 - i : i);
-            int column = horizontal ? (forward ? sidelength - 1 - i : i) : line;
-            Cell cell = board[row][column];
-            if (!cell.isEmpty())
-               values.add(cell);
-         }
-
-         // Merge adjacent equal cells
-         for (int i = 0; i < values.size() - 1; i++) {
-            Cell current = values.get(i);
-            Cell next = values.get(i + 1);
-            if (current.canMerge(next)) {
-               values.set(i, current.merge());
-               values.remove(i + 1);
-               moved = true;
+   // Writes the exponents after each of the four moves to out, direction d taking the cells from
+   // d.ordinal() * cells in row-major order, and the merge rewards to rewards[d.ordinal()] unless it is null.
+   // Returns the legal moves as a mask of ordinal bits. The board itself is left untouched and every line is read
+   // once for both of its directions.
+   public int afterstates(byte[] out, long[] rewards) {
+      int cells = tiles.length;
+      if (out.length < Direction.values().length * cells)
+         throw new IllegalArgumentException("Afterstate buffer needs " + Direction.values().length * cells
+               + " cells, got " + out.length);
+      if (afterstateLine == null)
+         afterstateLine = new byte[sidelength];
+      byte[] extracted = afterstateLine;
+
+      int legal = 0;
+      for (int pass = 0; pass < 2; pass++) {
+         boolean horizontal = pass == 0;
+         Direction backward = horizontal ? Direction.LEFT : Direction.UP;
+         Direction forward = horizontal ? Direction.RIGHT : Direction.DOWN;
+         int step = horizontal ? 1 : sidelength;
+         long backwardReward = 0;
+         long forwardReward = 0;
+
+         for (int lineIndex = 0; lineIndex < sidelength; lineIndex++) {
+            int start = lineStart(sidelength, lineIndex, horizontal, false);
+            int end = start + (sidelength - 1) * step;
+            int backwardEntry = lineTable == null ? LineTable.UNTABLED : lineTable.lookup(tiles, start, step);
+            int forwardEntry = backwardEntry == LineTable.UNTABLED
+                  ? LineTable.UNTABLED
+                  : lineTable.lookup(tiles, end, -step);
+            if (forwardEntry != LineTable.UNTABLED) {
+               backwardReward += LineTable.reward(backwardEntry);
+               if (storeEntry(backwardEntry, out, backward.ordinal() * cells, start, step))
+                  legal |= 1 << backward.ordinal();
+               forwardReward += LineTable.reward(forwardEntry);
+               if (storeEntry(forwardEntry, out, forward.ordinal() * cells, end, -step))
+                  legal |= 1 << forward.ordinal();
+               continue;
+            }
+
+            for (int i = 0, index = start; i < sidelength; i++, index += step) {
+               extracted[i] = tiles[index];
             }
+
+            backwardReward += slideLine(extracted, 0, 1, sidelength, line);
+            if (storeLine(line, out, backward.ordinal() * cells, start, step))
+               legal |= 1 << backward.ordinal();
+
+            forwardReward += slideLine(extracted, sidelength - 1, -1, sidelength, line);
+            if (storeLine(line, out, forward.ordinal() * cells, end, -step))
+               legal |= 1 << forward.ordinal();
          }
 
-         // Rebuild line back into board using setCell
-         for (int i = 0; i < sidelength; i++) {
-            int row = horizontal ? line : (forward ? sidelength - 1 - i : i);
-            int column = horizontal ? (forward ? sidelength - 1 - i : i) : line;
-            BoardPosition position = new BoardPosition(row, column);
-            Cell newCell = (i < values.size()) ? values.get(i) : Cell.emptyCell();
+         if (rewards != null) {
+            rewards[backward.ordinal()] = backwardReward;
+            rewards[forward.ordinal()] = forwardReward;
+         }
+      }
+      return legal;
+   }
+
+   // Writes a merged line into an afterstate, reporting whether it differs from the board
+   private boolean storeLine(byte[] merged, byte[] out, int outOffset, int start, int step) {
+      boolean changed = false;
+      for (int i = 0, index = start; i < sidelength; i++, index += step) {
+         out[outOffset + index] = merged[i];
+         if (merged[i] != tiles[index])
+            changed = true;
+      }
+      return changed;
+   }
+
+   // Writes a line table entry into an afterstate, reporting whether the line moved
+   private boolean storeEntry(int entry, byte[] out, int outOffset, int start, int step) {
+      for (int i = 0, index = start; i < sidelength; i++, index += step) {
+         out[outOffset + index] = (byte) LineTable.exponent(entry, i);
+      }
+      return LineTable.moved(entry);
+   }
+
+   private boolean slideAndMerge(Direction dir) {
+      if (KERNEL.isVectorized() && sidelength >= KERNEL_MIN_SIDELENGTH)
+         return slideAndMergeKernel(dir);
+
+      changedCount = 0;
+      boolean moved = false;
+      boolean horizontal = dir.isHorizontal();
+      boolean forward = (dir == Direction.DOWN || dir == Direction.RIGHT);
+      int step = horizontal ? 1 : sidelength;
+      if (forward)
+         step = -step;
+
+      for (int lineIndex = 0; lineIndex < sidelength; lineIndex++) {
+         int start = lineStart(sidelength, lineIndex, horizontal, forward);
+         int entry = lineTable == null ? LineTable.UNTABLED : lineTable.lookup(tiles, start, step);
+         if (entry == LineTable.UNTABLED) {
+            score += slideLine(tiles, start, step, sidelength, line);
+         } else if (LineTable.moved(entry)) {
+            score += LineTable.reward(entry);
+            lineTable.decode(entry, line);
+         } else {
+            // The table knows the line stays put, so there is nothing to write back
+            continue;
+         }
 
-            if (!getCell(position).equals(newCell)) {
-               setCell(newCell, position);
+         // Write the line back, touching only the cells that changed
+         for (int i = 0, index = start; i < sidelength; i++, index += step) {
+            byte exponent = line[i];
+            if (tiles[index] != exponent) {
+               writeTile(index, exponent);
+               recordChange(index);
                moved = true;
             }
          }
@@ -115,25 +276,148 @@ public class Board {
       return moved;
    }
 
-   public void setCell(Cell cell, BoardPosition position) {
-      if (!cell.isEmpty())
-         emptyCells.remove(position);
-      else
-         emptyCells.add(position);
-      board[position.row][position.column] = cell;
+   private boolean slideAndMergeKernel(Direction dir) {
+      if (kernelOut == null)
+         kernelOut = new byte[tiles.length];
+      score += KERNEL.move(tiles, sidelength, dir, kernelOut);
+
+      changedCount = 0;
+      boolean moved = false;
+      for (int index = 0; index < tiles.length; index++) {
+         byte exponent = kernelOut[index];
+         if (tiles[index] != exponent) {
+            writeTile(index, exponent);
+            recordChange(index);
+            moved = true;
+         }
+      }
+      return moved;
    }
 
-   public Cell getCell(BoardPosition position) {
+   private void recordChange(int index) {
+      if (changedCells != null)
+         changedCells[changedCount++] = index;
+   }
+
+   // First cell of a line in swipe order
+   static int lineStart(int sidelength, int lineIndex, boolean horizontal, boolean forward) {
+      int start = horizontal ? lineIndex * sidelength : lineIndex;
+      if (forward)
+         start += horizontal ? sidelength - 1 : (sidelength - 1) * sidelength;
+      return start;
+   }
+
+   // Compacts and merges one line into out, returning the value of the merged tiles
+   static long slideLine(byte[] tiles, int start, int step, int length, byte[] out) {
+      return slideLine(tiles, start, step, length, out, 0, 1);
+   }
+
+   // Same, writing the line to out from outStart, one cell every outStep
+   static long slideLine(byte[] tiles, int start, int step, int length, byte[] out, int outStart, int outStep) {
+      int next = outStart;
+      long reward = 0;
+      boolean mergeable = false;
+      for (int i = 0, index = start; i < length; i++, index += step) {
+         byte exponent = tiles[index];
+         if (exponent == 0)
+            continue;
+         if (mergeable && out[next - outStep] == exponent) {
+            reward += 1L << ++out[next - outStep];
+            mergeable = false;
+         } else {
+            out[next] = exponent;
+            next += outStep;
+            mergeable = true;
+         }
+      }
+      for (int end = outStart + length * outStep; next != end; next += outStep) {
+         out[next] = 0;
+      }
+      return reward;
+   }
+
+   private void writeTile(int index, byte exponent) {
+      byte previous = tiles[index];
+      if (previous == exponent)
+         return;
+
+      mergeablePairs += equalNeighbours(index, exponent) - equalNeighbours(index, previous);
+      int zobristOffset = index * Zobrist.EXPONENTS;
+      zobristHash ^= zobristTable[zobristOffset + previous] ^ zobristTable[zobristOffset + exponent];
+      tiles[index] = exponent;
+      if ((previous == 0) != (exponent == 0)) {
+         emptyCells[index >>> 6] ^= 1L << index;
+         emptyCount += previous == 0 ? -1 : 1;
+      }
+   }
+
+   // Neighbours of a cell holding the given non-empty exponent
+   private int equalNeighbours(int index, byte exponent) {
+      if (exponent == 0)
+         return 0;
+      int column = index % sidelength;
+      int count = 0;
+      if (column > 0 && tiles[index - 1] == exponent)
+         count++;
+      if (column + 1 < sidelength && tiles[index + 1] == exponent)
+         count++;
+      if (index >= sidelength && tiles[index - sidelength] == exponent)
+         count++;
+      if (index + sidelength < tiles.length && tiles[index + sidelength] == exponent)
+         count++;
+      return count;
+   }
+
+   public void setCell(Cell cell, BoardPosition position) {
       if (!isPositionInBounds(position))
          throw new IndexOutOfBoundsException(
                "Position" + position.toString() + "is out of bounds");
-      return board[position.row][position.column];
+      writeTile(position.row * sidelength + position.column, toExponent(cell.getValue()));
+   }
+
+   // Places a tile without notifying listeners, 0 empties the cell
+   public void setExponent(int row, int column, int exponent) {
+      if (row < 0 || row >= sidelength || column < 0 || column >= sidelength)
+         throw new IndexOutOfBoundsException(
+               "Position" + new BoardPosition(row, column) + "is out of bounds");
+      if (exponent < 0 || exponent > Byte.MAX_VALUE)
+         throw new IllegalArgumentException("Invalid tile exponent: " + exponent);
+      writeTile(row * sidelength + column, (byte) exponent);
+   }
+
+   public Cell getCell(BoardPosition position) {
+      return getCell(position.row, position.column);
+   }
+
+   public Cell getCell(int row, int column) {
+      int exponent = getExponent(row, column);
+      return exponent == 0 ? Cell.emptyCell() : new Cell(1 << exponent);
+   }
+
+   public int getExponent(int row, int column) {
+      if (row < 0 || row >= sidelength || column < 0 || column >= sidelength)
+         throw new IndexOutOfBoundsException(
+               "Position" + new BoardPosition(row, column) + "is out of bounds");
+      return tiles[row * sidelength + column];
    }
 
    public int getSidelength() {
       return sidelength;
    }
 
+   // Sum of all merged tile values so far
+   public long getScore() {
+      return score;
+   }
+
+   public int getMaxExponent() {
+      int max = 0;
+      for (byte exponent : tiles) {
+         max = Math.max(max, exponent);
+      }
+      return max;
+   }
+
    public boolean isPositionInBounds(BoardPosition position) {
       int row = position.row;
       int column = position.column;
@@ -143,13 +427,79 @@ public class Board {
             column >= 0);
    }
 
-   private void fillRandomEmptyCell() {
-      if (emptyCells.isEmpty())
+   public void fillRandomEmptyCell() {
+      if (BoardMetrics.ENABLED) {
+         BoardMetrics.Recorder metrics = BoardMetrics.recorder();
+         long start = metrics.beginSpawn();
+         spawnTile();
+         metrics.endSpawn(start);
+         return;
+      }
+      spawnTile();
+   }
+
+   private void spawnTile() {
+      if (emptyCount == 0)
          return;
 
-      List<BoardPosition> list = new ArrayList<>(emptyCells);
-      BoardPosition randomPosition = list.get(new Random().nextInt(list.size()));
-      setCell(Cell.defaultValueCell(), randomPosition);
+      // The k-th empty cell in row-major order, so every engine spawns alike for the same source
+      int target = spawnSource.nextPosition(emptyCount);
+      int word = 0;
+      int count;
+      while (target >= (count = Long.bitCount(emptyCells[word]))) {
+         target -= count;
+         word++;
+      }
+      int index = (word << 6) + selectBit(emptyCells[word], target);
+      int exponent = spawnSource.nextExponent();
+      writeTile(index, (byte) exponent);
+      for (BoardListener listener : listeners) {
+         listener.spawned(this, index / sidelength, index % sidelength, exponent);
+      }
+   }
+
+   public void addListener(BoardListener listener) {
+      if (changedCells == null)
+         changedCells = new int[tiles.length];
+      listeners = Arrays.copyOf(listeners, listeners.length + 1);
+      listeners[listeners.length - 1] = listener;
+   }
+
+   public void removeListener(BoardListener listener) {
+      for (int i = 0; i < listeners.length; i++) {
+         if (listeners[i] == listener) {
+            BoardListener[] remaining = new BoardListener[listeners.length - 1];
+            System.arraycopy(listeners, 0, remaining, 0, i);
+            System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+            listeners = remaining;
+            return;
+         }
+      }
+   }
+
+   // Position of the k-th lowest set bit, narrowing down by halves
+   static int selectBit(long word, int k) {
+      int position = 0;
+      for (int width = 32; width > 0; width >>>= 1) {
+         long low = word & ((1L << width) - 1);
+         int count = Long.bitCount(low);
+         if (k >= count) {
+            k -= count;
+            word >>>= width;
+            position += width;
+         } else {
+            word = low;
+         }
+      }
+      return position;
+   }
+
+   public SpawnSource getSpawnSource() {
+      return spawnSource;
+   }
+
+   public void setSpawnSource(SpawnSource spawnSource) {
+      this.spawnSource = spawnSource;
    }
 
    public void forEachCell(Consumer<BoardPosition> action) {
@@ -160,6 +510,71 @@ public class Board {
       }
    }
 
+   public void forEachExponent(ExponentConsumer action) {
+      for (int row = 0; row < sidelength; row++) {
+         for (int column = 0; column < sidelength; column++) {
+            action.accept(row, column, tiles[row * sidelength + column]);
+         }
+      }
+   }
+
+   @FunctionalInterface
+   public interface ExponentConsumer {
+      void accept(int row, int column, int exponent);
+   }
+
+   // Overwrites this board with the state of another of the same size, without allocating
+   public void copyFrom(Board other) {
+      if (other.sidelength != sidelength)
+         throw new IllegalArgumentException(
+               "Can't copy a board with sidelength " + other.sidelength + " into one with " + sidelength);
+      System.arraycopy(other.tiles, 0, tiles, 0, tiles.length);
+      System.arraycopy(other.emptyCells, 0, emptyCells, 0, emptyCells.length);
+      emptyCount = other.emptyCount;
+      mergeablePairs = other.mergeablePairs;
+      zobristHash = other.zobristHash;
+      score = other.score;
+   }
+
+   public BoardSnapshot snapshot() {
+      return new BoardSnapshot(sidelength, tiles, emptyCells, emptyCount, mergeablePairs, zobristHash, score);
+   }
+
+   // Puts the board back into a snapshot's state. Listeners get the cells that differ, as after a move.
+   public void restore(BoardSnapshot snapshot) {
+      if (snapshot.sidelength != sidelength)
+         throw new IllegalArgumentException(
+               "Can't restore a snapshot with sidelength " + snapshot.sidelength + " into a board with " + sidelength);
+      changedCount = 0;
+      if (changedCells != null) {
+         for (int index = 0; index < tiles.length; index++) {
+            if (tiles[index] != snapshot.tiles[index])
+               recordChange(index);
+         }
+      }
+
+      System.arraycopy(snapshot.tiles, 0, tiles, 0, tiles.length);
+      System.arraycopy(snapshot.emptyCells, 0, emptyCells, 0, emptyCells.length);
+      emptyCount = snapshot.emptyCount;
+      mergeablePairs = snapshot.mergeablePairs;
+      zobristHash = snapshot.zobristHash;
+      score = snapshot.score;
+
+      if (changedCount > 0) {
+         for (BoardListener listener : listeners) {
+            listener.cellsChanged(this, changedCells, changedCount);
+         }
+      }
+   }
+
+   private static byte toExponent(int value) {
+      if (value == 0)
+         return 0;
+      if (value < 0 || Integer.bitCount(value) != 1)
+         throw new IllegalArgumentException("Cell value must be a power of two: " + value);
+      return (byte) Integer.numberOfTrailingZeros(value);
+   }
+
    public static Board buildFromString(String boardString) {
       String[] powersList = boardString.split(",");
       int length = powersList.length;
@@ -172,35 +587,28 @@ public class Board {
       else
          sidelength = (int) sidelengthDouble;
 
-      Board board = new Board(sidelength);
+      Board board = empty(sidelength, SpawnSource.threadLocal());
 
-      for (int row = 0; row < sidelength; row++) {
-         for (int column = 0; column < board.sidelength; column++) {
-            int index = row * sidelength + column;
-            String powerString = powersList[index];
-
-            int power = 0;
-            try {
-               power = Integer.parseInt(powerString);
-               if (power < 0 || power > 30)
-                  throw new NumberFormatException();
-            } catch (NumberFormatException e) {
-               throw new IllegalArgumentException(
-                     "String contained an invalid number (must be a whole number 0-30): " + powerString);
-            }
+      for (int index = 0; index < length; index++) {
+         String powerString = powersList[index];
 
-            BoardPosition position = new BoardPosition(row, column);
-            if (power == 0)
-               board.setCell(Cell.emptyCell(), position);
-            else
-               board.setCell(new Cell((int) Math.pow(2, power)), position);
+         int power = 0;
+         try {
+            power = Integer.parseInt(powerString);
+            if (power < 0 || power > 30)
+               throw new NumberFormatException();
+         } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                  "String contained an invalid number (must be a whole number 0-30): " + powerString);
          }
+
+         board.writeTile(index, (byte) power);
       }
       return board;
    }
 
    public int getNumberOfEmptyCells() {
-      return emptyCells.size();
+      return emptyCount;
    }
 
    @Override
@@ -211,15 +619,23 @@ public class Board {
          return false;
 
       Board otherBoard = (Board) obj;
-      for (int row = 0; row < sidelength; row++) {
-         for (int column = 0; column < sidelength; column++) {
-            BoardPosition position = new BoardPosition(row, column);
-            if (!getCell(position).equals(otherBoard.getCell(position)))
-               return false;
-         }
-      }
+      return sidelength == otherBoard.sidelength
+            && zobristHash == otherBoard.zobristHash
+            && Arrays.equals(tiles, otherBoard.tiles);
+   }
+
+   @Override
+   public int hashCode() {
+      return Long.hashCode(zobristHash);
+   }
+
+   public long getZobristHash() {
+      return zobristHash;
+   }
 
-      return true;
+   // An immutable snapshot of the tiles, cheap to compare and hash
+   public BoardKey key() {
+      return BoardKey.of(sidelength, tiles, zobristHash);
    }
 
    @Override
@@ -228,11 +644,10 @@ public class Board {
       stringBuilder.append("\n");
       for (int row = 0; row < sidelength; row++) {
          for (int column = 0; column < sidelength; column++) {
-            BoardPosition position = new BoardPosition(row, column);
-            String string = getCell(position).toString();
+            String string = String.valueOf(tiles[row * sidelength + column]);
             int stringLength = string.length();
 
-            stringBuilder.append(getCell(position));
+            stringBuilder.append(string);
             for (int i = 0; i < 4 - stringLength; i++) {
                stringBuilder.append(" ");
             }
@@ -242,4 +657,4 @@ public class Board {
       return stringBuilder.toString();
    }
 
-}
\ No newline at end of file
+}
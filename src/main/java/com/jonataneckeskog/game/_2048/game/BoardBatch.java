@@ -0,0 +1,195 @@
+package com.jonataneckeskog.game._2048.game;
+
+import java.util.Arrays;
+
+// K games of the same size stored side by side in flat arrays, stepped together.
+// Game g owns tiles[g * cells, (g + 1) * cells) in row-major order. Spawns draw from one source in game order,
+// so a batch plays exactly like K Boards updated one after another from that source.
+public class BoardBatch {
+
+   private final int games;
+   private final int sidelength;
+   private final int cells;
+   private final byte[] tiles;
+   private final long[] scores;
+   private final int[] emptyCounts;
+   private final byte[] line;
+   private SpawnSource spawnSource;
+
+   public BoardBatch(int games, int sidelength, SpawnSource spawnSource) {
+      if (games < 1 || sidelength < 2)
+         throw new IllegalArgumentException(
+               "A batch needs at least one game and a sidelength of at least 2: " + games + ", " + sidelength);
+      if ((long) games * sidelength * sidelength > Integer.MAX_VALUE)
+         throw new IllegalArgumentException("Batch of " + games + " games is too large for sidelength " + sidelength);
+      this.games = games;
+      this.sidelength = sidelength;
+      this.cells = sidelength * sidelength;
+      this.tiles = new byte[games * cells];
+      this.scores = new long[games];
+      this.emptyCounts = new int[games];
+      this.line = new byte[sidelength];
+      this.spawnSource = spawnSource;
+      for (int game = 0; game < games; game++) {
+         reset(game);
+      }
+   }
+
+   // Starts the game over with a single spawned tile, like a new Board
+   public void reset(int game) {
+      checkGame(game);
+      Arrays.fill(tiles, game * cells, (game + 1) * cells, (byte) 0);
+      scores[game] = 0;
+      emptyCounts[game] = cells;
+      spawn(game);
+   }
+
+   // Plays directions[g] in game g and spawns where the board changed; a null direction skips the game.
+   // Any of the result arrays may be null when the caller doesn't need them.
+   public void step(Direction[] directions, boolean[] moved, long[] rewards, boolean[] gameOver) {
+      if (directions.length != games)
+         throw new IllegalArgumentException("Expected " + games + " directions, got " + directions.length);
+
+      for (int game = 0; game < games; game++) {
+         Direction direction = directions[game];
+         long reward = direction == null ? -1 : step(game, direction);
+
+         if (moved != null)
+            moved[game] = reward >= 0;
+         if (rewards != null)
+            rewards[game] = Math.max(reward, 0);
+         if (gameOver != null)
+            gameOver[game] = isGameOver(game);
+      }
+   }
+
+   // Plays one game and spawns if the board changed, returning the merge reward or -1 if nothing moved
+   public long step(int game, Direction direction) {
+      checkGame(game);
+      long reward = move(game, direction);
+      if (reward >= 0)
+         spawn(game);
+      return reward;
+   }
+
+   private long move(int game, Direction direction) {
+      boolean horizontal = direction.isHorizontal();
+      boolean forward = (direction == Direction.DOWN || direction == Direction.RIGHT);
+      int step = horizontal ? 1 : sidelength;
+      if (forward)
+         step = -step;
+
+      int offset = game * cells;
+      boolean changed = false;
+      long reward = 0;
+      int empty = emptyCounts[game];
+      for (int lineIndex = 0; lineIndex < sidelength; lineIndex++) {
+         int start = offset + Board.lineStart(sidelength, lineIndex, horizontal, forward);
+         reward += Board.slideLine(tiles, start, step, sidelength, line);
+
+         for (int i = 0, index = start; i < sidelength; i++, index += step) {
+            byte exponent = line[i];
+            byte previous = tiles[index];
+            if (previous != exponent) {
+               if ((previous == 0) != (exponent == 0))
+                  empty += previous == 0 ? -1 : 1;
+               tiles[index] = exponent;
+               changed = true;
+            }
+         }
+      }
+
+      if (!changed)
+         return -1;
+      emptyCounts[game] = empty;
+      scores[game] += reward;
+      return reward;
+   }
+
+   // The k-th empty cell in row-major order, matching Board.fillRandomEmptyCell
+   private void spawn(int game) {
+      if (emptyCounts[game] == 0)
+         return;
+      int target = spawnSource.nextPosition(emptyCounts[game]);
+      int index = game * cells;
+      while (tiles[index] != 0 || target-- > 0) {
+         index++;
+      }
+      tiles[index] = (byte) spawnSource.nextExponent();
+      emptyCounts[game]--;
+   }
+
+   public boolean isGameOver(int game) {
+      checkGame(game);
+      if (emptyCounts[game] != 0)
+         return false;
+
+      int offset = game * cells;
+      for (int row = 0; row < sidelength; row++) {
+         for (int column = 0; column < sidelength; column++) {
+            int index = offset + row * sidelength + column;
+            if (column + 1 < sidelength && tiles[index] == tiles[index + 1])
+               return false;
+            if (row + 1 < sidelength && tiles[index] == tiles[index + sidelength])
+               return false;
+         }
+      }
+      return true;
+   }
+
+   public int getExponent(int game, int row, int column) {
+      checkGame(game);
+      if (row < 0 || row >= sidelength || column < 0 || column >= sidelength)
+         throw new IndexOutOfBoundsException(
+               "Position" + new BoardPosition(row, column) + "is out of bounds");
+      return tiles[game * cells + row * sidelength + column];
+   }
+
+   // Copies the row-major exponents of a game into out starting at offset
+   public void copyTiles(int game, byte[] out, int offset) {
+      checkGame(game);
+      System.arraycopy(tiles, game * cells, out, offset, cells);
+   }
+
+   public long getScore(int game) {
+      checkGame(game);
+      return scores[game];
+   }
+
+   public int getNumberOfEmptyCells(int game) {
+      checkGame(game);
+      return emptyCounts[game];
+   }
+
+   // The tiles of a game on a new Board, whose score starts at 0
+   public Board toBoard(int game) {
+      checkGame(game);
+      Board board = Board.empty(sidelength, spawnSource);
+      for (int index = 0; index < cells; index++) {
+         board.setExponent(index / sidelength, index % sidelength, tiles[game * cells + index]);
+      }
+      return board;
+   }
+
+   public int getGames() {
+      return games;
+   }
+
+   public int getSidelength() {
+      return sidelength;
+   }
+
+   public SpawnSource getSpawnSource() {
+      return spawnSource;
+   }
+
+   public void setSpawnSource(SpawnSource spawnSource) {
+      this.spawnSource = spawnSource;
+   }
+
+   private void checkGame(int game) {
+      if (game < 0 || game >= games)
+         throw new IndexOutOfBoundsException("Game " + game + " is out of bounds for a batch of " + games);
+   }
+
+}
@@ -0,0 +1,90 @@
+package com.jonataneckeskog.game._2048.game;
+
+import java.util.Arrays;
+
+// Immutable copy of a board's tiles for use as a map key. Boards of up to 16 cells with
+// exponents below 16 are packed into a long using the BitBoard layout, larger ones keep a byte array.
+public final class BoardKey {
+
+   private final int sidelength;
+   private final long packed;
+   private final byte[] tiles;
+   private final int hash;
+
+   private BoardKey(int sidelength, long packed, byte[] tiles, int hash) {
+      this.sidelength = sidelength;
+      this.packed = packed;
+      this.tiles = tiles;
+      this.hash = hash;
+   }
+
+   static BoardKey of(int sidelength, byte[] tiles, long zobristHash) {
+      if (tiles.length <= 16) {
+         long packed = 0;
+         boolean fits = true;
+         for (int i = 0; i < tiles.length && fits; i++) {
+            fits = tiles[i] <= BitBoard.MAX_EXPONENT;
+            packed |= (long) tiles[i] << (4 * i);
+         }
+         if (fits)
+            return new BoardKey(sidelength, packed, null, mix(packed) + sidelength);
+      }
+      return new BoardKey(sidelength, 0, tiles.clone(), Long.hashCode(zobristHash) + sidelength);
+   }
+
+   private static int mix(long bits) {
+      bits = (bits ^ (bits >>> 33)) * 0xFF51AFD7ED558CCDL;
+      bits = (bits ^ (bits >>> 33)) * 0xC4CEB9FE1A85EC53L;
+      return (int) (bits ^ (bits >>> 33));
+   }
+
+   public int getSidelength() {
+      return sidelength;
+   }
+
+   public boolean isPacked() {
+      return tiles == null;
+   }
+
+   // The packed tiles, only meaningful when isPacked
+   public long getPacked() {
+      return packed;
+   }
+
+   public int getExponent(int row, int column) {
+      if (row < 0 || row >= sidelength || column < 0 || column >= sidelength)
+         throw new IndexOutOfBoundsException(
+               "Position" + new BoardPosition(row, column) + "is out of bounds");
+      int index = row * sidelength + column;
+      return tiles == null ? (int) ((packed >>> (4 * index)) & 0xF) : tiles[index];
+   }
+
+   public Board toBoard(SpawnSource spawnSource) {
+      Board board = Board.empty(sidelength, spawnSource);
+      for (int row = 0; row < sidelength; row++) {
+         for (int column = 0; column < sidelength; column++) {
+            board.setExponent(row, column, getExponent(row, column));
+         }
+      }
+      return board;
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj)
+         return true;
+      if (obj == null || getClass() != obj.getClass())
+         return false;
+      BoardKey otherKey = (BoardKey) obj;
+      return hash == otherKey.hash
+            && sidelength == otherKey.sidelength
+            && packed == otherKey.packed
+            && Arrays.equals(tiles, otherKey.tiles);
+   }
+
+   @Override
+   public int hashCode() {
+      return hash;
+   }
+
+}
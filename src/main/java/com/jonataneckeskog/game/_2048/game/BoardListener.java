@@ -0,0 +1,17 @@
+package com.jonataneckeskog.game._2048.game;
+
+// Notified synchronously by Board, on the thread that changes it
+public interface BoardListener {
+
+   // A move that changed the board, before the tile it spawns
+   default void moved(Board board, Direction direction) {
+   }
+
+   // Row-major indices of exactly the cells a move changed, after moved. Only valid during the call.
+   default void cellsChanged(Board board, int[] indices, int count) {
+   }
+
+   default void spawned(Board board, int row, int column, int exponent) {
+   }
+
+}
@@ -0,0 +1,49 @@
+package com.jonataneckeskog.game._2048.game;
+
+// Immutable copy of a board's full state, including the score and the cached counts, so Board.restore
+// only copies arrays back without recounting anything
+public final class BoardSnapshot {
+
+   final int sidelength;
+   final byte[] tiles;
+   final long[] emptyCells;
+   final int emptyCount;
+   final int mergeablePairs;
+   final long zobristHash;
+   final long score;
+
+   BoardSnapshot(int sidelength, byte[] tiles, long[] emptyCells, int emptyCount, int mergeablePairs,
+         long zobristHash, long score) {
+      this.sidelength = sidelength;
+      this.tiles = tiles.clone();
+      this.emptyCells = emptyCells.clone();
+      this.emptyCount = emptyCount;
+      this.mergeablePairs = mergeablePairs;
+      this.zobristHash = zobristHash;
+      this.score = score;
+   }
+
+   public int getSidelength() {
+      return sidelength;
+   }
+
+   public long getScore() {
+      return score;
+   }
+
+   public int getExponent(int row, int column) {
+      if (row < 0 || row >= sidelength || column < 0 || column >= sidelength)
+         throw new IndexOutOfBoundsException(
+               "Position" + new BoardPosition(row, column) + "is out of bounds");
+      return tiles[row * sidelength + column];
+   }
+
+   public boolean isGameOver() {
+      return emptyCount == 0 && mergeablePairs == 0;
+   }
+
+   public BoardKey key() {
+      return BoardKey.of(sidelength, tiles, zobristHash);
+   }
+
+}
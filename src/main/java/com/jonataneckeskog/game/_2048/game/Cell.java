@@ -1,7 +1,5 @@
 package com.jonataneckeskog.game._2048.game;
 
-import java.util.Random;
-
 public class Cell {
 
    private int value;
@@ -15,9 +13,11 @@ public class Cell {
    }
 
    public static Cell defaultValueCell() {
-      Random random = new Random();
-      Cell cell = new Cell((random.nextInt(10) < 9) ? 2 : 4);
-      return cell;
+      return defaultValueCell(SpawnSource.threadLocal());
+   }
+
+   public static Cell defaultValueCell(SpawnSource spawnSource) {
+      return new Cell(1 << spawnSource.nextExponent());
    }
 
    public int getValue() {
@@ -0,0 +1,205 @@
+package com.jonataneckeskog.game._2048.game;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.stream.IntStream;
+
+// The result of sliding every possible line of up to MAX_SIDELENGTH cells with exponents up to 15, so Board can
+// move a line with one lookup instead of compacting and merging it. Opt-in with -Dgame2048.lineTables=FILE: the
+// tables for every sidelength are generated in parallel into FILE the first time and memory-mapped from then on,
+// so later processes start without generating anything and share the pages. Lines holding larger exponents, and
+// the two 32768 tiles whose merge doesn't fit in a nibble, are left to Board.slideLine.
+//
+// An entry packs the moved line one nibble per cell, first cell lowest, a bit per cell holding a merged tile
+// from MERGED_SHIFT, and MOVED when the line changed. The merge reward is the sum of the merged tiles.
+//
+// File layout, all numbers little-endian:
+//
+//   int MAGIC, int VERSION, int MAX_SIDELENGTH, then int[16^n] entries for every n from 2 to MAX_SIDELENGTH
+final class LineTable {
+
+   static final String PATH_PROPERTY = "game2048.lineTables";
+   static final int MAX_SIDELENGTH = 6;
+   static final int UNTABLED = -1;
+
+   static final int MAGIC = 0x4C494E45;
+   static final int VERSION = 1;
+   static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+   private static final int MAX_EXPONENT = 15;
+   private static final int MERGED_SHIFT = 4 * MAX_SIDELENGTH;
+   private static final int MOVED = 1 << 30;
+
+   private final int sidelength;
+   private final IntBuffer entries;
+
+   private LineTable(int sidelength, IntBuffer entries) {
+      this.sidelength = sidelength;
+      this.entries = entries;
+   }
+
+   // The table for lines of that length, null when tables are off or the lines are too long
+   static LineTable forSidelength(int sidelength) {
+      if (Holder.TABLES == null || sidelength < 2 || sidelength > MAX_SIDELENGTH)
+         return null;
+      return Holder.TABLES[sidelength];
+   }
+
+   // Loaded apart from LineTable itself: generating runs LineTable code on pool threads, which would otherwise
+   // wait forever for the class initialization that is waiting for them
+   private static final class Holder {
+      static final LineTable[] TABLES = loadFromProperty();
+   }
+
+   private static LineTable[] loadFromProperty() {
+      String path = System.getProperty(PATH_PROPERTY);
+      if (path == null)
+         return null;
+      try {
+         return load(Path.of(path));
+      } catch (IOException e) {
+         // Board still works without them, so a bad path costs speed rather than failing class initialization
+         System.getLogger(LineTable.class.getName()).log(System.Logger.Level.WARNING,
+               "Couldn't load line tables from " + path + ", sliding lines without them", e);
+         return null;
+      }
+   }
+
+   // Maps the tables in path, generating the file first if it doesn't exist. Indexed by sidelength.
+   static LineTable[] load(Path path) throws IOException {
+      if (!Files.exists(path))
+         generate(path);
+
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         long size = channel.size();
+         if (size != fileSize())
+            throw new IOException("Expected " + fileSize() + " bytes in " + path + ", found " + size);
+         MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+         buffer.order(ByteOrder.LITTLE_ENDIAN);
+         if (buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a line table file: " + path);
+         if (buffer.getInt(4) != VERSION || buffer.getInt(8) != MAX_SIDELENGTH)
+            throw new IOException("Unsupported line table version " + buffer.getInt(4) + " in " + path);
+
+         LineTable[] tables = new LineTable[MAX_SIDELENGTH + 1];
+         int offset = HEADER_BYTES;
+         for (int sidelength = 2; sidelength <= MAX_SIDELENGTH; sidelength++) {
+            int bytes = lines(sidelength) * Integer.BYTES;
+            IntBuffer entries = buffer.slice(offset, bytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            tables[sidelength] = new LineTable(sidelength, entries);
+            offset += bytes;
+         }
+         return tables;
+      }
+   }
+
+   // Fills a temporary file next to path and moves it into place, so a concurrent reader never maps half a table.
+   // Temporary files are only readable by their owner, so the table is opened up to other users' processes too.
+   static void generate(Path path) throws IOException {
+      Path directory = path.toAbsolutePath().getParent();
+      Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+      try {
+         if (temporary.getFileSystem().supportedFileAttributeViews().contains("posix"))
+            Files.setPosixFilePermissions(temporary, PosixFilePermissions.fromString("rw-r--r--"));
+         try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ,
+               StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, MAX_SIDELENGTH);
+            int offset = HEADER_BYTES;
+            for (int sidelength = 2; sidelength <= MAX_SIDELENGTH; sidelength++) {
+               int lines = lines(sidelength);
+               IntBuffer entries = buffer.slice(offset, lines * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                     .asIntBuffer();
+               int length = sidelength;
+               IntStream.range(0, lines).parallel().forEach(line -> entries.put(line, entry(line, length)));
+               offset += lines * Integer.BYTES;
+            }
+            buffer.force();
+         }
+         Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+         Files.deleteIfExists(temporary);
+      }
+   }
+
+   // Slides a line packed one nibble per cell toward its first cell, the same way as Board.slideLine
+   static int entry(int line, int sidelength) {
+      int result = 0;
+      int merged = 0;
+      int size = 0;
+      int pending = 0;
+      for (int i = 0; i < sidelength; i++) {
+         int exponent = (line >>> (4 * i)) & 0xF;
+         if (exponent == 0)
+            continue;
+         if (pending == exponent) {
+            if (exponent == MAX_EXPONENT)
+               return UNTABLED;
+            result += 1 << (4 * (size - 1));
+            merged |= 1 << (size - 1);
+            pending = 0;
+         } else {
+            result |= exponent << (4 * size++);
+            pending = exponent;
+         }
+      }
+      return result | merged << MERGED_SHIFT | (result != line ? MOVED : 0);
+   }
+
+   // The entry for the line starting at tiles[start], one cell every step, or UNTABLED
+   int lookup(byte[] tiles, int start, int step) {
+      int line = 0;
+      int bits = 0;
+      for (int i = 0, index = start; i < sidelength; i++, index += step) {
+         int exponent = tiles[index];
+         bits |= exponent;
+         line |= exponent << (4 * i);
+      }
+      return (bits & ~MAX_EXPONENT) != 0 ? UNTABLED : entries.get(line);
+   }
+
+   // Writes the moved line to out
+   void decode(int entry, byte[] out) {
+      for (int i = 0; i < sidelength; i++) {
+         out[i] = (byte) exponent(entry, i);
+      }
+   }
+
+   static int exponent(int entry, int i) {
+      return (entry >>> (4 * i)) & 0xF;
+   }
+
+   static boolean moved(int entry) {
+      return (entry & MOVED) != 0;
+   }
+
+   static long reward(int entry) {
+      long reward = 0;
+      for (int merged = (entry >>> MERGED_SHIFT) & ((1 << MAX_SIDELENGTH) - 1); merged != 0; merged &= merged - 1) {
+         reward += 1L << exponent(entry, Integer.numberOfTrailingZeros(merged));
+      }
+      return reward;
+   }
+
+   private static int lines(int sidelength) {
+      return 1 << (4 * sidelength);
+   }
+
+   private static long fileSize() {
+      long size = HEADER_BYTES;
+      for (int sidelength = 2; sidelength <= MAX_SIDELENGTH; sidelength++) {
+         size += (long) lines(sidelength) * Integer.BYTES;
+      }
+      return size;
+   }
+
+}
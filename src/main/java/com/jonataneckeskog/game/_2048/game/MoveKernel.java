@@ -0,0 +1,20 @@
+package com.jonataneckeskog.game._2048.game;
+
+// Moves every line of a row-major exponent grid at once
+public interface MoveKernel {
+
+   // Writes the moved grid to out and returns the value of the merged tiles
+   long move(byte[] tiles, int sidelength, Direction direction, byte[] out);
+
+   boolean isVectorized();
+
+   static MoveKernel scalar() {
+      return ScalarMoveKernel.INSTANCE;
+   }
+
+   // The Vector API kernel when it was built with the vector profile and jdk.incubator.vector is loaded
+   static MoveKernel best() {
+      return ScalarMoveKernel.BEST;
+   }
+
+}
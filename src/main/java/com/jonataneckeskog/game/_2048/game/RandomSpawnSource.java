@@ -0,0 +1,41 @@
+package com.jonataneckeskog.game._2048.game;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+// Spawns a 2 nine times out of ten, otherwise a 4
+class RandomSpawnSource implements SpawnSource {
+
+   static final SpawnSource THREAD_LOCAL = new SpawnSource() {
+      @Override
+      public int nextPosition(int emptyCount) {
+         return ThreadLocalRandom.current().nextInt(emptyCount);
+      }
+
+      @Override
+      public int nextExponent() {
+         return exponent(ThreadLocalRandom.current());
+      }
+   };
+
+   private final RandomGenerator random;
+
+   RandomSpawnSource(RandomGenerator random) {
+      this.random = random;
+   }
+
+   @Override
+   public int nextPosition(int emptyCount) {
+      return random.nextInt(emptyCount);
+   }
+
+   @Override
+   public int nextExponent() {
+      return exponent(random);
+   }
+
+   static int exponent(RandomGenerator random) {
+      return (random.nextInt(10) < 9) ? 1 : 2;
+   }
+
+}
@@ -0,0 +1,45 @@
+package com.jonataneckeskog.game._2048.game;
+
+// One line at a time through Board.slideLine, used wherever the vector kernel isn't available
+final class ScalarMoveKernel implements MoveKernel {
+
+   static final ScalarMoveKernel INSTANCE = new ScalarMoveKernel();
+   static final MoveKernel BEST = loadBest();
+
+   private static final String VECTOR_KERNEL = "com.jonataneckeskog.game._2048.game.VectorMoveKernel";
+
+   private ScalarMoveKernel() {
+   }
+
+   private static MoveKernel loadBest() {
+      try {
+         return (MoveKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+         // Either not compiled in or started without --add-modules jdk.incubator.vector
+         return INSTANCE;
+      }
+   }
+
+   @Override
+   public long move(byte[] tiles, int sidelength, Direction direction, byte[] out) {
+      boolean horizontal = direction.isHorizontal();
+      boolean forward = (direction == Direction.DOWN || direction == Direction.RIGHT);
+      int step = horizontal ? 1 : sidelength;
+      if (forward)
+         step = -step;
+
+      // Each line lands in the same cells of out, so there is no line buffer to allocate or share between threads
+      long reward = 0;
+      for (int lineIndex = 0; lineIndex < sidelength; lineIndex++) {
+         int start = Board.lineStart(sidelength, lineIndex, horizontal, forward);
+         reward += Board.slideLine(tiles, start, step, sidelength, out, start, step);
+      }
+      return reward;
+   }
+
+   @Override
+   public boolean isVectorized() {
+      return false;
+   }
+
+}
@@ -0,0 +1,29 @@
+package com.jonataneckeskog.game._2048.game;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+// Decides where new tiles appear and what they are
+public interface SpawnSource {
+
+   // Which empty cell to fill, counted in row-major order, in [0, emptyCount)
+   int nextPosition(int emptyCount);
+
+   // Exponent of the new tile, 1 for a 2 and 2 for a 4
+   int nextExponent();
+
+   static SpawnSource of(RandomGenerator random) {
+      return new RandomSpawnSource(random);
+   }
+
+   // Reproducible: equal seeds and equal moves give equal games
+   static SpawnSource seeded(long seed) {
+      return of(new SplittableRandom(seed));
+   }
+
+   // Unseeded and safe to share, drawing from the calling thread's random generator
+   static SpawnSource threadLocal() {
+      return RandomSpawnSource.THREAD_LOCAL;
+   }
+
+}
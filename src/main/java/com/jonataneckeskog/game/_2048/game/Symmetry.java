@@ -0,0 +1,110 @@
+package com.jonataneckeskog.game._2048.game;
+
+// The eight rotations and reflections of a 4x4 bitboard. Transform t mirrors the columns if bit 0 is set,
+// then the rows if bit 1 is set, then transposes if bit 2 is set. Moves map along with the board:
+// apply(move(b, d), t) == move(apply(b, t), map(d, t)).
+public final class Symmetry {
+
+   public static final int TRANSFORMS = 8;
+
+   private static final Direction[][] MAPPED = new Direction[TRANSFORMS][];
+   private static final Direction[][] UNMAPPED = new Direction[TRANSFORMS][];
+
+   static {
+      Direction[] directions = Direction.values();
+      for (int t = 0; t < TRANSFORMS; t++) {
+         MAPPED[t] = new Direction[directions.length];
+         UNMAPPED[t] = new Direction[directions.length];
+         for (Direction direction : directions) {
+            Direction mapped = direction;
+            if ((t & 1) != 0)
+               mapped = mirrorColumns(mapped);
+            if ((t & 2) != 0)
+               mapped = mirrorRows(mapped);
+            if ((t & 4) != 0)
+               mapped = transpose(mapped);
+            MAPPED[t][direction.ordinal()] = mapped;
+            UNMAPPED[t][mapped.ordinal()] = direction;
+         }
+      }
+   }
+
+   private Symmetry() {
+   }
+
+   public static long apply(long board, int transform) {
+      if ((transform & 1) != 0)
+         board = mirrorColumns(board);
+      if ((transform & 2) != 0)
+         board = mirrorRows(board);
+      if ((transform & 4) != 0)
+         board = BitBoard.transpose(board);
+      return board;
+   }
+
+   // The smallest of the eight symmetric boards, equal for every board in the same class
+   public static long canonical(long board) {
+      return apply(board, canonicalTransform(board));
+   }
+
+   public static int canonicalTransform(long board) {
+      long mirrored = mirrorColumns(board);
+      long[] variants = { board, mirrored, mirrorRows(board), mirrorRows(mirrored) };
+
+      long best = board;
+      int bestTransform = 0;
+      for (int t = 0; t < TRANSFORMS; t++) {
+         long variant = t < 4 ? variants[t] : BitBoard.transpose(variants[t - 4]);
+         if (variant < best) {
+            best = variant;
+            bestTransform = t;
+         }
+      }
+      return bestTransform;
+   }
+
+   // The move on the transformed board matching direction on the original
+   public static Direction map(Direction direction, int transform) {
+      return MAPPED[transform][direction.ordinal()];
+   }
+
+   // The move on the original board matching direction on the transformed one
+   public static Direction unmap(Direction direction, int transform) {
+      return UNMAPPED[transform][direction.ordinal()];
+   }
+
+   static long mirrorColumns(long board) {
+      board = ((board & 0x0F0F0F0F0F0F0F0FL) << 4) | ((board >>> 4) & 0x0F0F0F0F0F0F0F0FL);
+      return ((board & 0x00FF00FF00FF00FFL) << 8) | ((board >>> 8) & 0x00FF00FF00FF00FFL);
+   }
+
+   static long mirrorRows(long board) {
+      return (board << 48) | ((board & 0xFFFF0000L) << 16) | ((board >>> 16) & 0xFFFF0000L) | (board >>> 48);
+   }
+
+   private static Direction mirrorColumns(Direction direction) {
+      return switch (direction) {
+         case LEFT -> Direction.RIGHT;
+         case RIGHT -> Direction.LEFT;
+         default -> direction;
+      };
+   }
+
+   private static Direction mirrorRows(Direction direction) {
+      return switch (direction) {
+         case UP -> Direction.DOWN;
+         case DOWN -> Direction.UP;
+         default -> direction;
+      };
+   }
+
+   private static Direction transpose(Direction direction) {
+      return switch (direction) {
+         case UP -> Direction.LEFT;
+         case LEFT -> Direction.UP;
+         case DOWN -> Direction.RIGHT;
+         case RIGHT -> Direction.DOWN;
+      };
+   }
+
+}
@@ -0,0 +1,30 @@
+package com.jonataneckeskog.game._2048.game;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Random keys per cell and exponent, XORed together into a board hash
+final class Zobrist {
+
+   static final int EXPONENTS = 128;
+
+   private static final ConcurrentHashMap<Integer, long[]> TABLES = new ConcurrentHashMap<>();
+
+   private Zobrist() {
+   }
+
+   // Indexed by cell * EXPONENTS + exponent. Empty cells hash to 0, so an empty board hashes to 0.
+   // Seeded by the side length, so hashes are stable between runs.
+   static long[] table(int sidelength) {
+      return TABLES.computeIfAbsent(sidelength, side -> {
+         SplittableRandom random = new SplittableRandom(0x2048L * side);
+         long[] table = new long[side * side * EXPONENTS];
+         for (int i = 0; i < table.length; i++) {
+            if (i % EXPONENTS != 0)
+               table[i] = random.nextLong();
+         }
+         return table;
+      });
+   }
+
+}
@@ -0,0 +1,97 @@
+package com.jonataneckeskog.game._2048.gui;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.jonataneckeskog.game._2048.ai.ExpectimaxPolicy;
+import com.jonataneckeskog.game._2048.ai.Policy;
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.BoardKey;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Plays a board with a policy on its own thread, which owns the board from start() on.
+// It hands immutable frames to a single consumer through one slot: a frame is only built once the previous one
+// has been taken, so the engine never waits for the UI and never snapshots faster than the UI can show.
+public class AutoPlayer {
+
+   // How often the moves per second figure is refreshed
+   private static final long RATE_WINDOW_NANOS = 500_000_000L;
+
+   private final Board board;
+   private final Policy policy;
+   private final AtomicReference<Frame> latest = new AtomicReference<>();
+   private volatile boolean running;
+
+   private long moves;
+   private long windowStart;
+   private long windowMoves;
+   private double movesPerSecond;
+   private boolean windowClosed;
+
+   public AutoPlayer(Board board, Policy policy) {
+      this.board = board;
+      this.policy = policy;
+   }
+
+   public void start() {
+      running = true;
+      Thread.ofPlatform().name("autoplay").daemon().start(this::play);
+   }
+
+   // The engine finishes the move it is searching and exits
+   public void stop() {
+      running = false;
+   }
+
+   // The newest frame not seen yet, or null
+   public Frame poll() {
+      return latest.getAndSet(null);
+   }
+
+   private void play() {
+      windowStart = System.nanoTime();
+      latest.set(frame(false, null));
+      try {
+         while (running) {
+            Direction direction = policy.chooseMove(board);
+            boolean gameOver = direction == null || !board.update(direction);
+            if (direction != null)
+               moves++;
+
+            if (gameOver) {
+               // The last frame must always arrive, so it replaces whatever is still waiting
+               running = false;
+               latest.set(frame(true, null));
+            } else if (latest.get() == null) {
+               latest.set(frame(false, null));
+            }
+         }
+      } catch (RuntimeException e) {
+         // Nothing else is watching this thread, so the failure ends the game in a frame the UI will show
+         running = false;
+         System.err.println("Autoplay engine failed: " + e);
+         latest.set(frame(true, e.getMessage() != null ? e.getMessage() : e.toString()));
+      }
+   }
+
+   private Frame frame(boolean gameOver, String error) {
+      long now = System.nanoTime();
+      long elapsed = now - windowStart;
+      // Until the first window closes, show the rate so far rather than nothing
+      if (elapsed >= RATE_WINDOW_NANOS || (!windowClosed && elapsed > 0))
+         movesPerSecond = (moves - windowMoves) * 1e9 / elapsed;
+      if (elapsed >= RATE_WINDOW_NANOS) {
+         windowStart = now;
+         windowMoves = moves;
+         windowClosed = true;
+      }
+      int depth = policy instanceof ExpectimaxPolicy expectimax ? expectimax.getSolver().getLastDepth() : 0;
+      return new Frame(board.key(), board.getScore(), moves, movesPerSecond, depth, gameOver, error);
+   }
+
+   // Everything the UI shows about one moment of the game. error is null unless the policy failed, which also
+   // makes it the last frame.
+   public record Frame(BoardKey board, long score, long moves, double movesPerSecond, int searchDepth,
+         boolean gameOver, String error) {
+   }
+
+}
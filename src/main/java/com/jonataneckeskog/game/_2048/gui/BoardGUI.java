@@ -2,12 +2,16 @@ package com.jonataneckeskog.game._2048.gui;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 
-import com.jonataneckeskog.game._2048.game.BoardPosition;
-import com.jonataneckeskog.game._2048.game.Cell;
 import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.BoardKey;
+import com.jonataneckeskog.game._2048.game.BoardListener;
 
-public class BoardGUI extends JPanel {
+// Mirrors the board through its change events, so a move repaints only the cells it touched.
+// The board must only be changed on the EDT while this is attached.
+public class BoardGUI extends JPanel implements BoardListener {
 
    private Board board;
    private int sidelength;
@@ -22,26 +26,61 @@ public class BoardGUI extends JPanel {
       initializeCells();
 
       setBackground(new Color(183, 177, 162));
+      addComponentListener(new ComponentAdapter() {
+         @Override
+         public void componentResized(ComponentEvent e) {
+            TileImages.clear();
+         }
+      });
+      board.addListener(this);
    }
 
    private void initializeCells() {
       for (int row = 0; row < sidelength; row++) {
          for (int column = 0; column < sidelength; column++) {
-            Cell cell = board.getCell(new BoardPosition(row, column));
-            cells[row][column] = new CellGUI(cell.getValue());
+            cells[row][column] = new CellGUI(0);
+            cells[row][column].updateExponent(board.getExponent(row, column));
             add(cells[row][column]);
          }
       }
    }
 
+   // Resynchronizes every cell, for changes made without events such as setExponent
    public void update() {
-      for (int row = 0; row < board.getSidelength(); row++) {
-         for (int column = 0; column < board.getSidelength(); column++) {
-            Cell cell = board.getCell(new BoardPosition(row, column));
-            cells[row][column].update(cell.getValue());
+      board.forEachExponent((row, column, exponent) -> cells[row][column].updateExponent(exponent));
+   }
+
+   // Exponent the cell currently paints
+   int getCellExponent(int row, int column) {
+      return cells[row][column].getExponent();
+   }
+
+   // Copies a snapshot into the shown board, repainting only the cells that differ
+   public void show(BoardKey snapshot) {
+      for (int row = 0; row < sidelength; row++) {
+         for (int column = 0; column < sidelength; column++) {
+            int exponent = snapshot.getExponent(row, column);
+            if (board.getExponent(row, column) != exponent) {
+               board.setExponent(row, column, exponent);
+               cells[row][column].updateExponent(exponent);
+            }
          }
       }
-      repaint();
+   }
+
+   @Override
+   public void cellsChanged(Board board, int[] indices, int count) {
+      for (int i = 0; i < count; i++) {
+         int index = indices[i];
+         int row = index / sidelength;
+         int column = index % sidelength;
+         cells[row][column].updateExponent(board.getExponent(row, column));
+      }
+   }
+
+   @Override
+   public void spawned(Board board, int row, int column, int exponent) {
+      cells[row][column].updateExponent(exponent);
    }
 
 }
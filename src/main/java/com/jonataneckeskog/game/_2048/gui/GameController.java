@@ -7,17 +7,28 @@ import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
 import java.awt.event.ActionEvent;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.BoardSnapshot;
+import com.jonataneckeskog.game._2048.game.Direction;
 
 public class GameController {
 
+   // Moves kept for undo, the oldest are dropped first
+   static final int HISTORY_LIMIT = 10000;
+
    private Board board;
    private BoardGUI boardGUI;
+   private final Deque<BoardSnapshot> undoStack = new ArrayDeque<>();
+   private final Deque<BoardSnapshot> redoStack = new ArrayDeque<>();
+   private boolean gameOver;
 
    public GameController(Board board, BoardGUI boardGUI) {
       this.board = board;
       this.boardGUI = boardGUI;
+      gameOver = board.isGameOver();
    }
 
    // Starts listening for key input
@@ -35,11 +46,65 @@ public class GameController {
       im.put(KeyStroke.getKeyStroke("DOWN"), "moveDown");
       im.put(KeyStroke.getKeyStroke("LEFT"), "moveLeft");
       im.put(KeyStroke.getKeyStroke("RIGHT"), "moveRight");
+      im.put(KeyStroke.getKeyStroke("ctrl Z"), "undo");
+      im.put(KeyStroke.getKeyStroke("ctrl Y"), "redo");
+      im.put(KeyStroke.getKeyStroke("ctrl shift Z"), "redo");
 
       am.put("moveUp", new MoveAction('U'));
       am.put("moveDown", new MoveAction('D'));
       am.put("moveLeft", new MoveAction('L'));
       am.put("moveRight", new MoveAction('R'));
+      am.put("undo", new AbstractAction() {
+         @Override
+         public void actionPerformed(ActionEvent e) {
+            undo();
+         }
+      });
+      am.put("redo", new AbstractAction() {
+         @Override
+         public void actionPerformed(ActionEvent e) {
+            redo();
+         }
+      });
+   }
+
+   // Plays a move, remembering the position before it. Returns false if the move changed nothing.
+   boolean play(Direction direction) {
+      if (gameOver || !board.canMove(direction))
+         return false;
+      if (undoStack.size() == HISTORY_LIMIT)
+         undoStack.removeLast();
+      undoStack.push(board.snapshot());
+      redoStack.clear();
+      gameOver = !board.update(direction);
+      return true;
+   }
+
+   // Steps back to the position before the last move, including its score and spawned tile
+   public boolean undo() {
+      if (undoStack.isEmpty())
+         return false;
+      redoStack.push(board.snapshot());
+      board.restore(undoStack.pop());
+      gameOver = board.isGameOver();
+      return true;
+   }
+
+   public boolean redo() {
+      if (redoStack.isEmpty())
+         return false;
+      undoStack.push(board.snapshot());
+      board.restore(redoStack.pop());
+      gameOver = board.isGameOver();
+      return true;
+   }
+
+   public boolean canUndo() {
+      return !undoStack.isEmpty();
+   }
+
+   public boolean canRedo() {
+      return !redoStack.isEmpty();
    }
 
    private class MoveAction extends AbstractAction {
@@ -49,16 +114,12 @@ public class GameController {
          this.directionChar = directionChar;
       }
 
-      // Handles movement actions
+      // Handles movement actions. A lost game ignores moves but can still be undone.
       @Override
       public void actionPerformed(ActionEvent e) {
-         boolean isGameOver = !board.update(directionChar);
-         boardGUI.update();
-         if (isGameOver) {
-            boardGUI.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).clear();
-            boardGUI.getActionMap().clear();
+         // BoardGUI repaints the changed cells from the board's events
+         if (play(Direction.fromChar(directionChar)) && gameOver)
             JOptionPane.showMessageDialog(boardGUI, "Game Over!", "Game Over", JOptionPane.INFORMATION_MESSAGE);
-         }
       }
    }
 
@@ -2,6 +2,7 @@ package com.jonataneckeskog.game._2048.gui;
 
 import javax.swing.*;
 
+import com.jonataneckeskog.game._2048.ai.Policy;
 import com.jonataneckeskog.game._2048.game.Board;
 
 public class GameWindow extends JFrame {
@@ -20,6 +21,24 @@ public class GameWindow extends JFrame {
       controller.start();
    }
 
+   // Spectator mode: the policy plays on its own thread while the window only shows its frames
+   public GameWindow(int sidelength, Policy policy) {
+      Board board = new Board(sidelength);
+      BoardGUI boardGUI = new BoardGUI(Board.empty(sidelength, board.getSpawnSource()));
+      StatsOverlay overlay = new StatsOverlay();
+      SpectatorController controller = new SpectatorController(new AutoPlayer(board, policy), boardGUI, overlay);
+
+      add(boardGUI);
+      setGlassPane(overlay);
+      overlay.setVisible(true);
+      setSize(800, 800);
+      setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+      setLocationRelativeTo(null);
+      setVisible(true);
+
+      controller.start();
+   }
+
    // Default board size
    public static void start() {
       start(4);
@@ -29,4 +48,8 @@ public class GameWindow extends JFrame {
       SwingUtilities.invokeLater(() -> new GameWindow(sidelength));
    }
 
+   public static void autoplay(int sidelength, Policy policy) {
+      SwingUtilities.invokeLater(() -> new GameWindow(sidelength, policy));
+   }
+
 }
@@ -0,0 +1,55 @@
+package com.jonataneckeskog.game._2048.gui;
+
+import javax.swing.*;
+import java.awt.*;
+
+// Shows an AutoPlayer's game at the display's refresh rate. Frames the engine produces in between are
+// dropped, so the UI costs the same whether the engine plays ten or a million moves per second.
+public class SpectatorController {
+
+   private static final int DEFAULT_REFRESH_RATE = 60;
+
+   private final AutoPlayer player;
+   private final BoardGUI boardGUI;
+   private final StatsOverlay overlay;
+   private final Timer timer;
+
+   public SpectatorController(AutoPlayer player, BoardGUI boardGUI, StatsOverlay overlay) {
+      this.player = player;
+      this.boardGUI = boardGUI;
+      this.overlay = overlay;
+      this.timer = new Timer(1000 / refreshRate(), e -> render());
+      timer.setCoalesce(true);
+   }
+
+   public void start() {
+      timer.start();
+      player.start();
+   }
+
+   public void stop() {
+      player.stop();
+      timer.stop();
+   }
+
+   private void render() {
+      AutoPlayer.Frame frame = player.poll();
+      if (frame == null)
+         return;
+      boardGUI.show(frame.board());
+      overlay.update(frame);
+      if (frame.gameOver())
+         timer.stop();
+      if (frame.error() != null)
+         JOptionPane.showMessageDialog(boardGUI, frame.error(), "Autoplay stopped", JOptionPane.ERROR_MESSAGE);
+   }
+
+   private static int refreshRate() {
+      if (GraphicsEnvironment.isHeadless())
+         return DEFAULT_REFRESH_RATE;
+      int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode()
+            .getRefreshRate();
+      return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : rate;
+   }
+
+}
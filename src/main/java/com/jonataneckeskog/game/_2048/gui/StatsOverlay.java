@@ -0,0 +1,41 @@
+package com.jonataneckeskog.game._2048.gui;
+
+import javax.swing.*;
+import java.awt.*;
+
+// Glass pane text in the top left corner of the window, repainting only its own box
+public class StatsOverlay extends JComponent {
+
+   private static final Font FONT = new Font(Font.MONOSPACED, Font.BOLD, 14);
+   private static final Color BACKGROUND = new Color(0, 0, 0, 150);
+   private static final int PADDING = 6;
+   private static final Rectangle AREA = new Rectangle(8, 8, 260, 4 * 18 + 2 * PADDING);
+
+   private String[] lines = new String[0];
+
+   public void update(AutoPlayer.Frame frame) {
+      lines = new String[] {
+            String.format("%,.0f moves/s", frame.movesPerSecond()),
+            frame.searchDepth() == 0 ? "depth -" : "depth " + frame.searchDepth(),
+            String.format("%,d moves, score %,d", frame.moves(), frame.score()),
+            frame.error() != null ? "engine failed" : frame.gameOver() ? "game over" : "playing" };
+      repaint(AREA);
+   }
+
+   @Override
+   protected void paintComponent(Graphics g) {
+      if (lines.length == 0)
+         return;
+      Graphics2D g2 = (Graphics2D) g;
+      g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+      g2.setColor(BACKGROUND);
+      g2.fillRoundRect(AREA.x, AREA.y, AREA.width, AREA.height, 10, 10);
+      g2.setColor(Color.WHITE);
+      g2.setFont(FONT);
+      int lineHeight = g2.getFontMetrics().getHeight();
+      for (int i = 0; i < lines.length; i++) {
+         g2.drawString(lines[i], AREA.x + PADDING, AREA.y + PADDING + (i + 1) * lineHeight - 4);
+      }
+   }
+
+}
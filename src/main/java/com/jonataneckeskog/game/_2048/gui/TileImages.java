@@ -0,0 +1,95 @@
+package com.jonataneckeskog.game._2048.gui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+// Pre-rendered tiles per cell size, so painting a cell is a single image copy. Only used on the EDT.
+final class TileImages {
+
+   private static final int MAX_EXPONENT = 62;
+   private static final Color MAX_COLOR = new Color(0xedc22e);
+   private static final Color[] BACKGROUNDS = new Color[MAX_EXPONENT + 1];
+   private static final Color DARK_TEXT = new Color(0x776e65);
+   private static final Font FONT = new Font("Arial", Font.BOLD, 24);
+
+   static {
+      int[] colors = { 0xcdc1b4, 0xeee4da, 0xede0c8, 0xf2b179, 0xf59563, 0xf67c5f, 0xf65e3b, 0xedcf72, 0xedcc61,
+            0xedc850, 0xedc53f, 0xedc22e };
+      for (int exponent = 0; exponent < colors.length; exponent++) {
+         BACKGROUNDS[exponent] = new Color(colors[exponent]);
+      }
+      // Every tile above 2048 is one shade darker than the last
+      Color color = MAX_COLOR;
+      for (int exponent = colors.length; exponent <= MAX_EXPONENT; exponent++) {
+         color = color.darker();
+         BACKGROUNDS[exponent] = color;
+      }
+   }
+
+   // Keyed by pixel width and height, since a GridLayout can hand out cells of two sizes
+   private static final Map<Long, BufferedImage[]> IMAGES = new HashMap<>();
+   private static long lastSize = -1;
+   private static BufferedImage[] lastImages;
+
+   private TileImages() {
+   }
+
+   // Width and height in device pixels, so tiles stay sharp on scaled displays
+   static BufferedImage get(int exponent, int width, int height, double scale) {
+      long size = (long) width << 32 | height;
+      if (size != lastSize) {
+         lastImages = IMAGES.computeIfAbsent(size, key -> new BufferedImage[MAX_EXPONENT + 1]);
+         lastSize = size;
+      }
+      int index = Math.min(exponent, MAX_EXPONENT);
+      if (lastImages[index] == null)
+         lastImages[index] = render(index, width, height, scale);
+      return lastImages[index];
+   }
+
+   // Called when the window changes size, so sizes that are no longer shown don't pile up
+   static void clear() {
+      IMAGES.clear();
+      lastSize = -1;
+      lastImages = null;
+   }
+
+   private static BufferedImage render(int exponent, int width, int height, double scale) {
+      BufferedImage image = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g2 = image.createGraphics();
+      try {
+         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+         g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+         g2.setColor(BACKGROUNDS[exponent]);
+         int arc = (int) Math.round(15 * scale);
+         g2.fillRoundRect(0, 0, width, height, arc, arc);
+
+         if (exponent != 0) {
+            String text = String.valueOf(1L << exponent);
+            g2.setColor(exponent <= 2 ? DARK_TEXT : Color.WHITE);
+            // Shrink the font until the value fits the tile
+            Font font = FONT.deriveFont((float) (FONT.getSize2D() * scale));
+            FontMetrics fm = g2.getFontMetrics(font);
+            int margin = (int) Math.round(4 * scale);
+            while (font.getSize2D() > 6 && (fm.stringWidth(text) > width - margin || fm.getAscent() > height - margin)) {
+               font = font.deriveFont(font.getSize2D() - 1);
+               fm = g2.getFontMetrics(font);
+            }
+            g2.setFont(font);
+            int x = (width - fm.stringWidth(text)) / 2;
+            int y = (height + fm.getAscent()) / 2 - margin;
+            g2.drawString(text, x, y);
+         }
+      } finally {
+         g2.dispose();
+      }
+      return image;
+   }
+
+}
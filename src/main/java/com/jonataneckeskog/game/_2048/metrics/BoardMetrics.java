@@ -0,0 +1,233 @@
+package com.jonataneckeskog.game._2048.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Opt-in instrumentation of Board's hot paths, enabled with -Dgame2048.metrics=true. ENABLED is a static final,
+// so with metrics off the JIT drops every check. Each thread counts into its own Recorder with plain fields and
+// adds the counts to the shared totals in batches. Latencies, allocations and move events are only taken for one
+// in every SAMPLE_INTERVAL calls, which keeps System.nanoTime off most moves.
+public final class BoardMetrics implements BoardMetricsMXBean {
+
+   public static final boolean ENABLED = Boolean.getBoolean("game2048.metrics");
+   public static final int SAMPLE_INTERVAL = 128;
+   public static final String OBJECT_NAME = "com.jonataneckeskog.game._2048:type=BoardMetrics";
+
+   private static final int FLUSH_INTERVAL = 1024;
+   private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+   private static final BoardMetrics INSTANCE = new BoardMetrics();
+   private static final ThreadLocal<Recorder> RECORDERS = ThreadLocal.withInitial(() -> new Recorder(INSTANCE));
+
+   static {
+      if (ENABLED) {
+         try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+         } catch (JMException e) {
+            System.err.println("Couldn't register " + OBJECT_NAME + ": " + e);
+         }
+      }
+   }
+
+   private final LongAdder updates = new LongAdder();
+   private final LongAdder moves = new LongAdder();
+   private final LongAdder movesChanged = new LongAdder();
+   private final LongAdder spawns = new LongAdder();
+   private final LongAdder gameOverChecks = new LongAdder();
+   private final LongAdder gameOvers = new LongAdder();
+   private final LongAdder allocatedBytes = new LongAdder();
+   private final LongAdder allocationSamples = new LongAdder();
+   private final LatencyHistogram updateLatency = new LatencyHistogram();
+   private final LatencyHistogram moveLatency = new LatencyHistogram();
+   private final LatencyHistogram spawnLatency = new LatencyHistogram();
+   private final LatencyHistogram gameOverLatency = new LatencyHistogram();
+
+   private BoardMetrics() {
+   }
+
+   public static BoardMetrics get() {
+      return INSTANCE;
+   }
+
+   public static Recorder recorder() {
+      return RECORDERS.get();
+   }
+
+   private static com.sun.management.ThreadMXBean allocationCounter() {
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+            && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled())
+         return threads;
+      return null;
+   }
+
+   @Override
+   public Map<String, Long> getCounters() {
+      Map<String, Long> counters = new LinkedHashMap<>();
+      counters.put("update", updates.sum());
+      counters.put("move", moves.sum());
+      counters.put("moveChanged", movesChanged.sum());
+      counters.put("spawn", spawns.sum());
+      counters.put("gameOverCheck", gameOverChecks.sum());
+      counters.put("gameOver", gameOvers.sum());
+      return counters;
+   }
+
+   @Override
+   public Map<String, Long> getLatencies() {
+      Map<String, Long> latencies = new LinkedHashMap<>();
+      putLatencies(latencies, "update", updateLatency);
+      putLatencies(latencies, "move", moveLatency);
+      putLatencies(latencies, "spawn", spawnLatency);
+      putLatencies(latencies, "gameOverCheck", gameOverLatency);
+      return latencies;
+   }
+
+   private static void putLatencies(Map<String, Long> latencies, String name, LatencyHistogram histogram) {
+      latencies.put(name + ".samples", histogram.getCount());
+      latencies.put(name + ".p50", histogram.getValueAtQuantile(0.5));
+      latencies.put(name + ".p90", histogram.getValueAtQuantile(0.9));
+      latencies.put(name + ".p99", histogram.getValueAtQuantile(0.99));
+      latencies.put(name + ".p999", histogram.getValueAtQuantile(0.999));
+      latencies.put(name + ".max", histogram.getMax());
+   }
+
+   @Override
+   public double getAllocatedBytesPerUpdate() {
+      long samples = allocationSamples.sum();
+      if (THREADS == null || samples == 0)
+         return -1;
+      return (double) allocatedBytes.sum() / samples;
+   }
+
+   @Override
+   public void reset() {
+      for (LongAdder adder : new LongAdder[] { updates, moves, movesChanged, spawns, gameOverChecks, gameOvers,
+            allocatedBytes, allocationSamples }) {
+         adder.reset();
+      }
+      for (LatencyHistogram histogram : new LatencyHistogram[] { updateLatency, moveLatency, spawnLatency,
+            gameOverLatency }) {
+         histogram.reset();
+      }
+   }
+
+   // Per-thread counts, only touched by the thread that owns the recorder. A begin method returns the start time of a
+   // sampled call and 0 otherwise. Board.update calls move inside its own window, so the recorder reuses one move
+   // event rather than allocate into every sampled update's byte count.
+   public static final class Recorder {
+      private final BoardMetrics metrics;
+      private long updates;
+      private long moves;
+      private long movesChanged;
+      private long spawns;
+      private long gameOverChecks;
+      // Totals already added to the shared counters
+      private long flushedUpdates;
+      private long flushedMoves;
+      private long flushedMovesChanged;
+      private long flushedSpawns;
+      private long flushedGameOverChecks;
+      private long pending;
+      private long allocationStart;
+      private final MoveEvent moveEvent = new MoveEvent();
+
+      private Recorder(BoardMetrics metrics) {
+         this.metrics = metrics;
+      }
+
+      public long beginUpdate() {
+         if ((++updates & (SAMPLE_INTERVAL - 1)) != 0)
+            return 0;
+         if (THREADS != null)
+            allocationStart = THREADS.getCurrentThreadAllocatedBytes();
+         return System.nanoTime();
+      }
+
+      public void endUpdate(long start, Board board, boolean running) {
+         if (start != 0) {
+            metrics.updateLatency.record(System.nanoTime() - start);
+            if (THREADS != null) {
+               metrics.allocatedBytes.add(THREADS.getCurrentThreadAllocatedBytes() - allocationStart);
+               metrics.allocationSamples.increment();
+            }
+         }
+         if (!running) {
+            metrics.gameOvers.increment();
+            GameOverEvent event = new GameOverEvent();
+            if (event.shouldCommit()) {
+               event.score = board.getScore();
+               event.maxTile = 1L << board.getMaxExponent();
+               event.sidelength = board.getSidelength();
+               event.commit();
+            }
+         }
+         if (++pending >= FLUSH_INTERVAL || !running)
+            flush();
+      }
+
+      public long beginMove() {
+         if ((++moves & (SAMPLE_INTERVAL - 1)) != 0)
+            return 0;
+         moveEvent.begin();
+         return System.nanoTime();
+      }
+
+      public void endMove(long start, Board board, Direction direction, boolean moved) {
+         if (moved)
+            movesChanged++;
+         if (start != 0) {
+            metrics.moveLatency.record(System.nanoTime() - start);
+            moveEvent.end();
+            if (moveEvent.shouldCommit()) {
+               moveEvent.direction = direction.toString();
+               moveEvent.moved = moved;
+               moveEvent.sidelength = board.getSidelength();
+               moveEvent.commit();
+            }
+         }
+         if (++pending >= FLUSH_INTERVAL)
+            flush();
+      }
+
+      public long beginSpawn() {
+         return (++spawns & (SAMPLE_INTERVAL - 1)) == 0 ? System.nanoTime() : 0;
+      }
+
+      public void endSpawn(long start) {
+         if (start != 0)
+            metrics.spawnLatency.record(System.nanoTime() - start);
+      }
+
+      public long beginGameOverCheck() {
+         return (++gameOverChecks & (SAMPLE_INTERVAL - 1)) == 0 ? System.nanoTime() : 0;
+      }
+
+      public void endGameOverCheck(long start) {
+         if (start != 0)
+            metrics.gameOverLatency.record(System.nanoTime() - start);
+      }
+
+      // Adds everything counted since the last flush to the shared totals
+      public void flush() {
+         metrics.updates.add(updates - flushedUpdates);
+         metrics.moves.add(moves - flushedMoves);
+         metrics.movesChanged.add(movesChanged - flushedMovesChanged);
+         metrics.spawns.add(spawns - flushedSpawns);
+         metrics.gameOverChecks.add(gameOverChecks - flushedGameOverChecks);
+         flushedUpdates = updates;
+         flushedMoves = moves;
+         flushedMovesChanged = movesChanged;
+         flushedSpawns = spawns;
+         flushedGameOverChecks = gameOverChecks;
+         pending = 0;
+      }
+   }
+
+}
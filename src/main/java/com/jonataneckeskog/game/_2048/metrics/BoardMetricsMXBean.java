@@ -0,0 +1,19 @@
+package com.jonataneckeskog.game._2048.metrics;
+
+import java.util.Map;
+
+// Registered as com.jonataneckeskog.game._2048:type=BoardMetrics when metrics are enabled
+public interface BoardMetricsMXBean {
+
+   // Calls per operation: update, move, moveChanged, spawn, gameOverCheck, gameOver
+   Map<String, Long> getCounters();
+
+   // Sampled latencies in nanoseconds, keyed like "move.p99"
+   Map<String, Long> getLatencies();
+
+   // Mean bytes allocated by the sampled updates, -1 if the JVM can't measure it
+   double getAllocatedBytesPerUpdate();
+
+   void reset();
+
+}
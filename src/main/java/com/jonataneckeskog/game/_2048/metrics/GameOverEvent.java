@@ -0,0 +1,24 @@
+package com.jonataneckeskog.game._2048.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.jonataneckeskog.game._2048.GameOver")
+@Label("Game Over")
+@Category("2048")
+@Description("Board.update found the board without any legal move")
+class GameOverEvent extends Event {
+
+   @Label("Score")
+   long score;
+
+   @Label("Max Tile")
+   long maxTile;
+
+   @Label("Sidelength")
+   int sidelength;
+
+}
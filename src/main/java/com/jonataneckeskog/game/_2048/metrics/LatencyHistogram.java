@@ -0,0 +1,76 @@
+package com.jonataneckeskog.game._2048.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear histogram in the style of HdrHistogram: every power of two is split into 16 linear buckets,
+// so any recorded value is known to within 1/16 of itself. Safe to record from many threads.
+public class LatencyHistogram {
+
+   private static final int SUB_BITS = 4;
+   private static final int SUB_BUCKETS = 1 << SUB_BITS;
+   private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+   private final AtomicLong total = new AtomicLong();
+   private final AtomicLong max = new AtomicLong();
+
+   public void record(long value) {
+      if (value < 0)
+         value = 0;
+      counts.incrementAndGet(bucket(value));
+      total.incrementAndGet();
+      if (value > max.get())
+         max.accumulateAndGet(value, Math::max);
+   }
+
+   public long getCount() {
+      return total.get();
+   }
+
+   public long getMax() {
+      return max.get();
+   }
+
+   // Lowest value of the bucket holding the given quantile, 0 when nothing was recorded
+   public long getValueAtQuantile(double quantile) {
+      if (quantile < 0 || quantile > 1)
+         throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+      long count = getCount();
+      if (count == 0)
+         return 0;
+      long rank = Math.max(1, (long) Math.ceil(quantile * count));
+      long seen = 0;
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+         seen += counts.get(bucket);
+         if (seen >= rank)
+            return Math.min(lowestValue(bucket), getMax());
+      }
+      return getMax();
+   }
+
+   public void reset() {
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+         counts.set(bucket, 0);
+      }
+      total.set(0);
+      max.set(0);
+   }
+
+   static int bucket(long value) {
+      if (value < SUB_BUCKETS)
+         return (int) value;
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+      return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+   }
+
+   static long lowestValue(int bucket) {
+      if (bucket < SUB_BUCKETS)
+         return bucket;
+      int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+      long sub = bucket % SUB_BUCKETS;
+      return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+   }
+
+}
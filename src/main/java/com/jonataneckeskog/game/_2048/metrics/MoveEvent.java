@@ -0,0 +1,24 @@
+package com.jonataneckeskog.game._2048.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.jonataneckeskog.game._2048.Move")
+@Label("Move")
+@Category("2048")
+@Description("A sampled Board.move, one in every BoardMetrics.SAMPLE_INTERVAL per thread")
+class MoveEvent extends Event {
+
+   @Label("Direction")
+   String direction;
+
+   @Label("Moved")
+   boolean moved;
+
+   @Label("Sidelength")
+   int sidelength;
+
+}
@@ -0,0 +1,94 @@
+package com.jonataneckeskog.game._2048.replay;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// A view of one game inside a mapped record file, valid while its reader is open
+public class GameRecord {
+
+   private static final Direction[] DIRECTIONS = Direction.values();
+
+   private final GameRecordReader reader;
+   private final long index;
+   private final long seed;
+   private final long eventsStart;
+   private final long end;
+   private final int moveCount;
+
+   GameRecord(GameRecordReader reader, long index, long seed, long eventsStart, long end, int moveCount) {
+      this.reader = reader;
+      this.index = index;
+      this.seed = seed;
+      this.eventsStart = eventsStart;
+      this.end = end;
+      this.moveCount = moveCount;
+   }
+
+   public long getIndex() {
+      return index;
+   }
+
+   public long getSeed() {
+      return seed;
+   }
+
+   public int getMoveCount() {
+      return moveCount;
+   }
+
+   public Direction getMove(int move) {
+      checkMove(move, moveCount - 1);
+      int seen = 0;
+      long position = eventsStart;
+      while (true) {
+         int event = reader.byteAt(position);
+         if ((event & GameRecordFormat.SPAWN_FLAG) != 0) {
+            position += reader.getSpawnBytes();
+         } else if (seen++ == move) {
+            return DIRECTIONS[event];
+         } else {
+            position++;
+         }
+      }
+   }
+
+   public Board finalBoard() {
+      return boardAfter(moveCount);
+   }
+
+   // The board after the given number of moves and the tile each of them spawned
+   public Board boardAfter(int moves) {
+      checkMove(moves, moveCount);
+      int sidelength = reader.getSidelength();
+      Board board = Board.empty(sidelength, SpawnSource.threadLocal());
+
+      int applied = 0;
+      for (long position = eventsStart; position < end - 1; ) {
+         int event = reader.byteAt(position);
+         if ((event & GameRecordFormat.SPAWN_FLAG) != 0) {
+            int code = reader.spawnCode(position);
+            int cell = code >>> 1;
+            board.setExponent(cell / sidelength, cell % sidelength, (code & 1) + 1);
+            position += reader.getSpawnBytes();
+         } else {
+            if (applied == moves)
+               break;
+            board.move(DIRECTIONS[event]);
+            applied++;
+            position++;
+         }
+      }
+      return board;
+   }
+
+   long getEnd() {
+      return end;
+   }
+
+   private static void checkMove(int move, int max) {
+      if (move < 0 || move > max)
+         throw new IndexOutOfBoundsException("Move " + move + " is out of range 0-" + max);
+   }
+
+}
@@ -0,0 +1,29 @@
+package com.jonataneckeskog.game._2048.replay;
+
+// Layout of a game record file, all numbers big-endian:
+//
+//   header:  int MAGIC, byte VERSION, byte sidelength
+//   game:    long seed, event*, byte END
+//   event:   move  = one byte holding the Direction ordinal (0-3)
+//            spawn = SPAWN_FLAG | position << 1 | (exponent - 1), position in row-major order,
+//                    one byte on boards of up to 64 cells and two bytes on larger ones
+final class GameRecordFormat {
+
+   static final int MAGIC = 0x32303438;
+   static final byte VERSION = 1;
+   static final int HEADER_BYTES = 6;
+
+   static final int END = 0x7F;
+   static final int SPAWN_FLAG = 0x80;
+
+   static final int MAX_SHORT_SPAWN_CELLS = 64;
+   static final int MAX_CELLS = 1 << 14;
+
+   private GameRecordFormat() {
+   }
+
+   static int spawnBytes(int sidelength) {
+      return sidelength * sidelength <= MAX_SHORT_SPAWN_CELLS ? 1 : 2;
+   }
+
+}
@@ -0,0 +1,132 @@
+package com.jonataneckeskog.game._2048.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Memory-maps a record file and walks its games in place, nothing is copied onto the heap
+public class GameRecordReader implements Closeable, Iterable<GameRecord> {
+
+   // Files are mapped in segments since a single mapping is limited to 2 GB
+   private static final int SEGMENT_SHIFT = 30;
+   private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+   private final FileChannel channel;
+   private final MappedByteBuffer[] segments;
+   private final long size;
+   private final int sidelength;
+   private final int spawnBytes;
+
+   public GameRecordReader(Path path) throws IOException {
+      channel = FileChannel.open(path, StandardOpenOption.READ);
+      try {
+         size = channel.size();
+         segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+         for (int i = 0; i < segments.length; i++) {
+            long offset = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                  Math.min(size - offset, SEGMENT_MASK + 1));
+         }
+
+         if (size < GameRecordFormat.HEADER_BYTES || readInt(0) != GameRecordFormat.MAGIC)
+            throw new IOException("Not a game record file: " + path);
+         if (byteAt(4) != GameRecordFormat.VERSION)
+            throw new IOException("Unsupported game record version " + byteAt(4) + " in " + path);
+         sidelength = byteAt(5);
+         spawnBytes = GameRecordFormat.spawnBytes(sidelength);
+      } catch (IOException | RuntimeException e) {
+         // The caller never gets a reader to close
+         channel.close();
+         throw e;
+      }
+   }
+
+   public int getSidelength() {
+      return sidelength;
+   }
+
+   @Override
+   public Iterator<GameRecord> iterator() {
+      return new Iterator<>() {
+         private long position = GameRecordFormat.HEADER_BYTES;
+         private long index;
+
+         @Override
+         public boolean hasNext() {
+            return position < size;
+         }
+
+         @Override
+         public GameRecord next() {
+            if (!hasNext())
+               throw new NoSuchElementException();
+            GameRecord game = readGame(index++, position);
+            position = game.getEnd();
+            return game;
+         }
+      };
+   }
+
+   // Scans one game, counting its moves, up to and including the END byte
+   private GameRecord readGame(long index, long start) {
+      long seed = readLong(start);
+      long position = start + Long.BYTES;
+      int moves = 0;
+      while (true) {
+         if (position >= size)
+            throw new IllegalStateException("Truncated game " + index + " at byte " + start);
+         int event = byteAt(position);
+         if (event == GameRecordFormat.END)
+            return new GameRecord(this, index, seed, start + Long.BYTES, position + 1, moves);
+         if ((event & GameRecordFormat.SPAWN_FLAG) != 0) {
+            position += spawnBytes;
+         } else {
+            moves++;
+            position++;
+         }
+      }
+   }
+
+   int byteAt(long position) {
+      return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK)) & 0xFF;
+   }
+
+   // Decodes the spawn starting at position into position << 1 | (exponent - 1)
+   int spawnCode(long position) {
+      int code = byteAt(position) & ~GameRecordFormat.SPAWN_FLAG;
+      if (spawnBytes == 2)
+         code = code << 8 | byteAt(position + 1);
+      return code;
+   }
+
+   int getSpawnBytes() {
+      return spawnBytes;
+   }
+
+   private int readInt(long position) {
+      int value = 0;
+      for (int i = 0; i < Integer.BYTES; i++) {
+         value = value << 8 | byteAt(position + i);
+      }
+      return value;
+   }
+
+   private long readLong(long position) {
+      long value = 0;
+      for (int i = 0; i < Long.BYTES; i++) {
+         value = value << 8 | byteAt(position + i);
+      }
+      return value;
+   }
+
+   @Override
+   public void close() throws IOException {
+      channel.close();
+   }
+
+}
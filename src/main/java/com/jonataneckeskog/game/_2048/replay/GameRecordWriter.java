@@ -0,0 +1,110 @@
+package com.jonataneckeskog.game._2048.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.BoardListener;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Streams games into the format described in GameRecordFormat. Records one game at a time.
+public class GameRecordWriter implements BoardListener, Closeable {
+
+   private static final int BUFFER_SIZE = 1 << 16;
+
+   private final DataOutputStream out;
+   private final int sidelength;
+   private final int spawnBytes;
+   private Board board;
+
+   public GameRecordWriter(Path path, int sidelength) throws IOException {
+      this(Files.newOutputStream(path), sidelength);
+   }
+
+   public GameRecordWriter(OutputStream out, int sidelength) throws IOException {
+      if (sidelength < 2 || sidelength * sidelength > GameRecordFormat.MAX_CELLS)
+         throw new IllegalArgumentException("Can't record boards with sidelength " + sidelength);
+      this.out = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+      this.sidelength = sidelength;
+      this.spawnBytes = GameRecordFormat.spawnBytes(sidelength);
+
+      this.out.writeInt(GameRecordFormat.MAGIC);
+      this.out.writeByte(GameRecordFormat.VERSION);
+      this.out.writeByte(sidelength);
+   }
+
+   // Records the board's current tiles as spawns, then every move and spawn until endGame
+   public void beginGame(Board board, long seed) throws IOException {
+      if (this.board != null)
+         throw new IllegalStateException("The previous game hasn't ended");
+      if (board.getSidelength() != sidelength)
+         throw new IllegalArgumentException(
+               "Recording " + sidelength + "x" + sidelength + " games, got sidelength " + board.getSidelength());
+
+      out.writeLong(seed);
+      for (int row = 0; row < sidelength; row++) {
+         for (int column = 0; column < sidelength; column++) {
+            int exponent = board.getExponent(row, column);
+            if (exponent > 2)
+               throw new IllegalArgumentException("Only games starting from spawned 2s and 4s can be recorded");
+            if (exponent != 0)
+               writeSpawn(row, column, exponent);
+         }
+      }
+
+      this.board = board;
+      board.addListener(this);
+   }
+
+   public void endGame() throws IOException {
+      if (board == null)
+         throw new IllegalStateException("No game is being recorded");
+      board.removeListener(this);
+      board = null;
+      out.writeByte(GameRecordFormat.END);
+   }
+
+   @Override
+   public void moved(Board board, Direction direction) {
+      try {
+         out.writeByte(direction.ordinal());
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   @Override
+   public void spawned(Board board, int row, int column, int exponent) {
+      try {
+         writeSpawn(row, column, exponent);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private void writeSpawn(int row, int column, int exponent) throws IOException {
+      int code = (row * sidelength + column) << 1 | (exponent - 1);
+      if (spawnBytes == 1)
+         out.writeByte(GameRecordFormat.SPAWN_FLAG | code);
+      else
+         out.writeShort(GameRecordFormat.SPAWN_FLAG << 8 | code);
+   }
+
+   public void flush() throws IOException {
+      out.flush();
+   }
+
+   @Override
+   public void close() throws IOException {
+      if (board != null)
+         endGame();
+      out.close();
+   }
+
+}
@@ -0,0 +1,11 @@
+package com.jonataneckeskog.game._2048.sim;
+
+public record GameResult(long game, long seed, long maxTile, long score, int moves, long wallNanos) {
+
+   public static final String CSV_HEADER = "game,seed,max_tile,score,moves,wall_us";
+
+   public String toCsv() {
+      return game + "," + seed + "," + maxTile + "," + score + "," + moves + "," + wallNanos / 1000;
+   }
+
+}
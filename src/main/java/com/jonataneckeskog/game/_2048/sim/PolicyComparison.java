@@ -0,0 +1,288 @@
+package com.jonataneckeskog.game._2048.sim;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jonataneckeskog.game._2048.ai.Evaluator;
+import com.jonataneckeskog.game._2048.ai.ExpectimaxPolicy;
+import com.jonataneckeskog.game._2048.ai.NTupleNetwork;
+import com.jonataneckeskog.game._2048.ai.Policy;
+
+// Plays two policies on pairs of games with the same seed, so both face the same spawn stream and the pair's
+// score difference carries far less luck than two independent games. Pairs run in parallel, but their results are
+// fed to the SequentialTest in pair order, so the stopping point and the report only depend on the seed.
+// Policies are created afresh for every game from its seed, so every game replays exactly.
+// Usage: PolicyComparison --a POLICY[:DEPTH] --b POLICY[:DEPTH] [--weights-a FILE] [--weights-b FILE] [--size N]
+//                         [--threads T] [--seed S] [--max-pairs N] [--alpha A] [--beta B] [--effect E]
+//                         [--out FILE|-]
+public class PolicyComparison {
+
+   public static final String CSV_HEADER = "pair,seed,score_a,score_b,max_tile_a,max_tile_b,moves_a,moves_b";
+
+   private static final long POLL_MILLIS = 100;
+   // Pairs a worker may start past the next one the test is waiting for, per worker, so one slow pair can't make
+   // the finished ones pile up without bound
+   private static final int AHEAD_PER_THREAD = 4;
+
+   private final PolicySpec a;
+   private final PolicySpec b;
+   private final int sidelength;
+   private final int threads;
+   private final long seed;
+
+   // A policy name as Policy.create takes it, with the search depth for policies that use one. An evaluator
+   // replaces the expectimax heuristic, which is how a new evaluator is tested against the old one; it is shared
+   // by every worker, like Simulator.setEvaluator, and null keeps the default.
+   public record PolicySpec(String name, int depth, Evaluator evaluator) {
+
+      public PolicySpec(String name, int depth) {
+         this(name, depth, null);
+      }
+
+      // Parses "greedy" or "expectimax:3", taking defaultDepth when no depth is given
+      public static PolicySpec parse(String spec, int defaultDepth) {
+         int colon = spec.indexOf(':');
+         if (colon < 0)
+            return new PolicySpec(spec, defaultDepth);
+         return new PolicySpec(spec.substring(0, colon), Integer.parseInt(spec.substring(colon + 1)));
+      }
+
+      public PolicySpec withEvaluator(Evaluator evaluator) {
+         return new PolicySpec(name, depth, evaluator);
+      }
+
+      void validate(int sidelength) {
+         Policy.validate(name, sidelength);
+         if (evaluator != null && !"expectimax".equalsIgnoreCase(name))
+            throw new IllegalArgumentException("Only expectimax takes an evaluator, not " + name);
+      }
+
+      Policy create(long seed) {
+         if (evaluator != null)
+            return new ExpectimaxPolicy(evaluator, depth);
+         return Policy.create(name, new SplittableRandom(seed), depth);
+      }
+
+      @Override
+      public String toString() {
+         return name + ":" + depth + (evaluator == null ? "" : " with " + evaluator.getClass().getSimpleName());
+      }
+   }
+
+   public record PairResult(GameResult a, GameResult b) {
+
+      public String toCsv() {
+         return a.game() + "," + a.seed() + "," + a.score() + "," + b.score() + "," + a.maxTile() + ","
+               + b.maxTile() + "," + a.moves() + "," + b.moves();
+      }
+   }
+
+   public PolicyComparison(PolicySpec a, PolicySpec b, int sidelength, int threads, long seed) {
+      if (threads < 1 || sidelength < 2)
+         throw new IllegalArgumentException("Threads and sidelength must be positive");
+      this.a = a;
+      this.b = b;
+      this.sidelength = sidelength;
+      this.threads = threads;
+      this.seed = seed;
+      // Fail before starting any worker if a policy name is wrong or can't play this size
+      a.validate(sidelength);
+      b.validate(sidelength);
+   }
+
+   PairResult playPair(long pair) throws IOException {
+      long gameSeed = Simulator.gameSeed(seed, pair);
+      GameResult resultA = Simulator.play(pair, gameSeed, sidelength, a.create(gameSeed), null);
+      GameResult resultB = Simulator.play(pair, gameSeed, sidelength, b.create(gameSeed), null);
+      return new PairResult(resultA, resultB);
+   }
+
+   // Plays pairs until the test decides or maxPairs are played, streaming one CSV line per counted pair to pairs
+   // if it isn't null. The test and both summaries see the pairs in order.
+   public void run(SequentialTest test, long maxPairs, SimulationSummary summaryA, SimulationSummary summaryB,
+         PrintStream pairs) throws InterruptedException, IOException {
+      AtomicLong nextPair = new AtomicLong();
+      AtomicBoolean stopped = new AtomicBoolean();
+      BlockingQueue<PairResult> finished = new LinkedBlockingQueue<>();
+      // A permit per pair started and not yet taken by the test. The pair the test waits for is always started
+      // before the ones after it, so taking it frees a permit and the workers never wait on each other for good.
+      Semaphore ahead = new Semaphore(AHEAD_PER_THREAD * threads);
+      List<Future<?>> workers = new ArrayList<>();
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+         for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+               while (true) {
+                  ahead.acquire();
+                  long pair = nextPair.getAndIncrement();
+                  if (pair >= maxPairs || stopped.get())
+                     return null;
+                  finished.put(playPair(pair));
+               }
+            }));
+         }
+         executor.shutdown();
+
+         if (pairs != null)
+            pairs.println(CSV_HEADER);
+         // Pairs finish out of order, the ones ahead of the next expected pair wait here
+         Map<Long, PairResult> waiting = new HashMap<>();
+         for (long next = 0; next < maxPairs && test.decision() == SequentialTest.Decision.CONTINUE;) {
+            PairResult result = finished.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (result == null) {
+               checkWorkers(workers);
+               continue;
+            }
+            waiting.put(result.a().game(), result);
+            while (test.decision() == SequentialTest.Decision.CONTINUE && (result = waiting.remove(next)) != null) {
+               test.add(result.a().score(), result.b().score());
+               summaryA.add(result.a());
+               summaryB.add(result.b());
+               if (pairs != null)
+                  pairs.println(result.toCsv());
+               next++;
+               ahead.release();
+            }
+         }
+         // Wakes every worker waiting for a permit, each then sees the stop and exits
+         stopped.set(true);
+         ahead.release(threads);
+         finished.clear();
+         for (Future<?> worker : workers) {
+            worker.get();
+         }
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof IOException io)
+            throw io;
+         throw new IllegalStateException("Comparison worker failed", e.getCause());
+      } finally {
+         stopped.set(true);
+         executor.shutdownNow();
+      }
+      if (pairs != null)
+         pairs.flush();
+   }
+
+   // Rethrows the failure of a worker that died, which would otherwise leave its pair missing forever
+   private static void checkWorkers(List<Future<?>> workers) throws ExecutionException, InterruptedException {
+      for (Future<?> worker : workers) {
+         if (worker.isDone())
+            worker.get();
+      }
+   }
+
+   public static void main(String[] args) throws IOException, InterruptedException {
+      String policyA = null;
+      String policyB = null;
+      String weightsA = null;
+      String weightsB = null;
+      int depth = 2;
+      int sidelength = 4;
+      int threads = Runtime.getRuntime().availableProcessors();
+      long seed = System.nanoTime();
+      long maxPairs = 100000;
+      double alpha = 0.05;
+      double beta = 0.05;
+      double effect = 0.02;
+      String out = null;
+
+      for (int i = 0; i < args.length; i++) {
+         String arg = args[i];
+         switch (arg) {
+            case "--a" -> policyA = value(args, ++i, arg);
+            case "--b" -> policyB = value(args, ++i, arg);
+            case "--weights-a" -> weightsA = value(args, ++i, arg);
+            case "--weights-b" -> weightsB = value(args, ++i, arg);
+            case "--depth" -> depth = Integer.parseInt(value(args, ++i, arg));
+            case "--size" -> sidelength = Integer.parseInt(value(args, ++i, arg));
+            case "--threads" -> threads = Integer.parseInt(value(args, ++i, arg));
+            case "--seed" -> seed = Long.parseLong(value(args, ++i, arg));
+            case "--max-pairs" -> maxPairs = Long.parseLong(value(args, ++i, arg));
+            case "--alpha" -> alpha = Double.parseDouble(value(args, ++i, arg));
+            case "--beta" -> beta = Double.parseDouble(value(args, ++i, arg));
+            case "--effect" -> effect = Double.parseDouble(value(args, ++i, arg));
+            case "--out" -> out = value(args, ++i, arg);
+            default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+         }
+      }
+      if (policyA == null || policyB == null)
+         throw new IllegalArgumentException("Both --a and --b policies are required");
+
+      PolicySpec specA = PolicySpec.parse(policyA, depth);
+      PolicySpec specB = PolicySpec.parse(policyB, depth);
+      if (weightsA != null)
+         specA = specA.withEvaluator(NTupleNetwork.map(Path.of(weightsA)));
+      if (weightsB != null)
+         specB = specB.withEvaluator(NTupleNetwork.map(Path.of(weightsB)));
+      PolicyComparison comparison = new PolicyComparison(specA, specB, sidelength, threads, seed);
+      SequentialTest test = new SequentialTest(alpha, beta, effect);
+      PrintStream pairs = null;
+      if ("-".equals(out))
+         pairs = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+      else if (out != null)
+         pairs = new PrintStream(new BufferedOutputStream(new FileOutputStream(out), 1 << 16), false);
+
+      // Keep the report off stdout when the pairs are streamed there
+      PrintStream report = "-".equals(out) ? System.err : System.out;
+      report.printf("Comparing a = %s with b = %s on %dx%d, seed %d, at most %,d pairs%n", specA, specB, sidelength,
+            sidelength, seed, maxPairs);
+      if (weightsA != null)
+         report.println("a evaluates with " + weightsA);
+      if (weightsB != null)
+         report.println("b evaluates with " + weightsB);
+      SimulationSummary summaryA = new SimulationSummary();
+      SimulationSummary summaryB = new SimulationSummary();
+      long start = System.nanoTime();
+      comparison.run(test, maxPairs, summaryA, summaryB, pairs);
+      double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+      // Closing a stream over stdout would close stdout itself
+      if ("-".equals(out))
+         pairs.flush();
+      else if (pairs != null)
+         pairs.close();
+
+      double unpairedVariance = Math.pow(summaryA.getScoreStandardDeviation(), 2)
+            + Math.pow(summaryB.getScoreStandardDeviation(), 2);
+      report.printf("a: mean score %,.1f, stddev %,.1f%n", summaryA.getMeanScore(),
+            summaryA.getScoreStandardDeviation());
+      report.printf("b: mean score %,.1f, stddev %,.1f%n", summaryB.getMeanScore(),
+            summaryB.getScoreStandardDeviation());
+      report.printf("b - a: %,.1f +/- %,.1f per game, pairing cut the variance %.1fx%n", test.getMeanDifference(),
+            test.getConfidence(), unpairedVariance / Math.max(test.getDifferenceVariance(), Double.MIN_NORMAL));
+      report.println(test);
+      // The test is one-sided: H0 only rules out b being better by the effect, b may still be far worse
+      report.println(switch (test.decision()) {
+         case ACCEPT_H1 -> String.format("Result: H1, b scores %.1f%% more than a, observed %+.1f%%", 100 * effect,
+               100 * test.getMeanDifference() / summaryA.getMeanScore());
+         case ACCEPT_H0 -> String.format("Result: H0, b is not %.1f%% better than a, observed %+.1f%%", 100 * effect,
+               100 * test.getMeanDifference() / summaryA.getMeanScore());
+         case CONTINUE -> String.format("Result: undecided after %,d pairs", test.getPairs());
+      });
+      report.printf("Played %,d pairs in %.1f s on %d threads%n", test.getPairs(), elapsedSeconds, threads);
+   }
+
+   private static String value(String[] args, int index, String name) {
+      if (index >= args.length)
+         throw new IllegalArgumentException("Missing value for " + name);
+      return args[index];
+   }
+
+}
@@ -0,0 +1,108 @@
+package com.jonataneckeskog.game._2048.sim;
+
+// Wald's sequential probability ratio test on paired score differences b - a, testing H0: no difference against
+// H1: b scores effect * mean(a) more. The differences are taken as normal with their sample variance, and the
+// log-likelihood ratio is checked after every pair against the bounds that give the requested error rates, so
+// clear differences stop after a few hundred pairs instead of a fixed count sized for the closest call.
+public class SequentialTest {
+
+   // Pairs before the variance estimate is trusted enough to stop on
+   public static final int MIN_PAIRS = 32;
+
+   public enum Decision {
+      CONTINUE, ACCEPT_H0, ACCEPT_H1
+   }
+
+   private final double alpha;
+   private final double beta;
+   private final double effect;
+   private final double lowerBound;
+   private final double upperBound;
+
+   private long pairs;
+   private double baselineSum;
+   private double differenceSum;
+   private double differenceSquareSum;
+
+   // alpha is the chance of accepting H1 when H0 holds, beta the chance of accepting H0 when H1 holds, and effect
+   // the improvement H1 stands for as a fraction of a's mean score
+   public SequentialTest(double alpha, double beta, double effect) {
+      if (alpha <= 0 || alpha >= 0.5 || beta <= 0 || beta >= 0.5)
+         throw new IllegalArgumentException("Error rates must be between 0 and 0.5");
+      if (effect <= 0)
+         throw new IllegalArgumentException("Effect must be positive: " + effect);
+      this.alpha = alpha;
+      this.beta = beta;
+      this.effect = effect;
+      lowerBound = Math.log(beta / (1 - alpha));
+      upperBound = Math.log((1 - beta) / alpha);
+   }
+
+   public void add(long scoreA, long scoreB) {
+      double difference = scoreB - scoreA;
+      pairs++;
+      baselineSum += scoreA;
+      differenceSum += difference;
+      differenceSquareSum += difference * difference;
+   }
+
+   public Decision decision() {
+      if (pairs < MIN_PAIRS)
+         return Decision.CONTINUE;
+      double llr = getLogLikelihoodRatio();
+      if (llr >= upperBound)
+         return Decision.ACCEPT_H1;
+      if (llr <= lowerBound)
+         return Decision.ACCEPT_H0;
+      return Decision.CONTINUE;
+   }
+
+   public double getLogLikelihoodRatio() {
+      if (pairs < 2)
+         return 0;
+      double shift = getEffectSize();
+      // Identical games on every pair are conclusive evidence against any shift
+      double variance = Math.max(getDifferenceVariance(), Double.MIN_NORMAL);
+      return shift / variance * (differenceSum - pairs * shift / 2);
+   }
+
+   // The score difference H1 stands for
+   public double getEffectSize() {
+      return pairs == 0 ? 0 : effect * baselineSum / pairs;
+   }
+
+   public double getDifferenceVariance() {
+      if (pairs < 2)
+         return 0;
+      double mean = getMeanDifference();
+      return Math.max(0, (differenceSquareSum - pairs * mean * mean) / (pairs - 1));
+   }
+
+   public double getMeanDifference() {
+      return pairs == 0 ? 0 : differenceSum / pairs;
+   }
+
+   // Half-width of the 95% confidence interval of the mean difference
+   public double getConfidence() {
+      return pairs == 0 ? 0 : 1.96 * Math.sqrt(getDifferenceVariance() / pairs);
+   }
+
+   public long getPairs() {
+      return pairs;
+   }
+
+   public double getLowerBound() {
+      return lowerBound;
+   }
+
+   public double getUpperBound() {
+      return upperBound;
+   }
+
+   @Override
+   public String toString() {
+      return String.format("SPRT alpha %s, beta %s, effect %s: LLR %.3f in [%.3f, %.3f] after %,d pairs", alpha, beta,
+            effect, getLogLikelihoodRatio(), lowerBound, upperBound, pairs);
+   }
+
+}
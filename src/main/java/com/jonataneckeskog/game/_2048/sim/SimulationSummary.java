@@ -0,0 +1,102 @@
+package com.jonataneckeskog.game._2048.sim;
+
+import java.io.PrintStream;
+
+// Aggregates game results, one instance per worker merged at the end
+public class SimulationSummary {
+
+   private static final int BUCKETS = 64;
+   private static final int BAR_WIDTH = 40;
+
+   private long games;
+   private long scoreSum;
+   private double scoreSquareSum;
+   private long minScore = Long.MAX_VALUE;
+   private long maxScore;
+   private long moveSum;
+   private long wallNanosSum;
+   // Indexed by tile exponent and by the floor of log2 of the score
+   private final long[] maxTileCounts = new long[BUCKETS];
+   private final long[] scoreCounts = new long[BUCKETS];
+
+   public void add(GameResult result) {
+      games++;
+      scoreSum += result.score();
+      scoreSquareSum += (double) result.score() * result.score();
+      minScore = Math.min(minScore, result.score());
+      maxScore = Math.max(maxScore, result.score());
+      moveSum += result.moves();
+      wallNanosSum += result.wallNanos();
+      maxTileCounts[Long.numberOfTrailingZeros(Math.max(result.maxTile(), 1))]++;
+      scoreCounts[63 - Long.numberOfLeadingZeros(Math.max(result.score(), 1))]++;
+   }
+
+   public void merge(SimulationSummary other) {
+      games += other.games;
+      scoreSum += other.scoreSum;
+      scoreSquareSum += other.scoreSquareSum;
+      minScore = Math.min(minScore, other.minScore);
+      maxScore = Math.max(maxScore, other.maxScore);
+      moveSum += other.moveSum;
+      wallNanosSum += other.wallNanosSum;
+      for (int i = 0; i < BUCKETS; i++) {
+         maxTileCounts[i] += other.maxTileCounts[i];
+         scoreCounts[i] += other.scoreCounts[i];
+      }
+   }
+
+   public long getGames() {
+      return games;
+   }
+
+   public double getMeanScore() {
+      return games == 0 ? 0 : (double) scoreSum / games;
+   }
+
+   public double getScoreStandardDeviation() {
+      if (games < 2)
+         return 0;
+      double mean = getMeanScore();
+      return Math.sqrt(Math.max(0, (scoreSquareSum - games * mean * mean) / (games - 1)));
+   }
+
+   // Fraction of games whose largest tile was at least the given value
+   public double getReachRate(long tile) {
+      long reached = 0;
+      for (int exponent = Long.numberOfTrailingZeros(tile); exponent < BUCKETS; exponent++) {
+         reached += maxTileCounts[exponent];
+      }
+      return games == 0 ? 0 : (double) reached / games;
+   }
+
+   public void print(PrintStream out, double elapsedSeconds) {
+      out.printf("games:  %,d in %.1f s (%,.1f games/s)%n", games, elapsedSeconds, games / elapsedSeconds);
+      if (games == 0)
+         return;
+      out.printf("score:  mean %,.1f, stddev %,.1f, min %,d, max %,d%n",
+            getMeanScore(), getScoreStandardDeviation(), minScore, maxScore);
+      out.printf("moves:  mean %,.1f, mean game time %.3f ms%n",
+            (double) moveSum / games, wallNanosSum / 1e6 / games);
+
+      out.println("max tile:");
+      for (int exponent = 0; exponent < BUCKETS; exponent++) {
+         if (maxTileCounts[exponent] != 0)
+            printRow(out, String.valueOf(1L << exponent), maxTileCounts[exponent],
+                  String.format("  reached %6.2f%%", 100 * getReachRate(1L << exponent)));
+      }
+
+      out.println("score:");
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+         if (scoreCounts[bucket] != 0)
+            printRow(out, "[" + (bucket == 0 ? 0 : 1L << bucket) + ", " + (1L << (bucket + 1)) + ")",
+                  scoreCounts[bucket], "");
+      }
+   }
+
+   private void printRow(PrintStream out, String label, long count, String suffix) {
+      double fraction = (double) count / games;
+      out.printf("  %16s %10d %6.2f%%%s  %s%n", label, count, 100 * fraction, suffix,
+            "#".repeat((int) Math.round(fraction * BAR_WIDTH)));
+   }
+
+}
@@ -0,0 +1,250 @@
+package com.jonataneckeskog.game._2048.sim;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jonataneckeskog.game._2048.ai.EvaluationCache;
+import com.jonataneckeskog.game._2048.ai.Evaluator;
+import com.jonataneckeskog.game._2048.ai.ExpectimaxPolicy;
+import com.jonataneckeskog.game._2048.ai.NTupleNetwork;
+import com.jonataneckeskog.game._2048.ai.Policy;
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+import com.jonataneckeskog.game._2048.replay.GameRecordWriter;
+import com.jonataneckeskog.game._2048.tablebase.Tablebase;
+import com.jonataneckeskog.game._2048.tablebase.TablebasePolicy;
+
+// Plays games headlessly and prints score distributions.
+// Usage: Simulator [--games N] [--policy random|greedy|expectimax|montecarlo] [--depth D] [--size N]
+//                  [--threads T] [--virtual] [--seed S] [--out FILE|-] [--record PREFIX] [--cache ENTRIES]
+//                  [--weights FILE] [--tablebase FILE]
+public class Simulator {
+
+   private final long games;
+   private final String policyName;
+   private final int depth;
+   private final int sidelength;
+   private final int threads;
+   private final boolean virtualThreads;
+   private final long seed;
+   private String recordPrefix;
+   private EvaluationCache cache;
+   private Evaluator evaluator;
+   private Tablebase tablebase;
+
+   public Simulator(long games, String policyName, int depth, int sidelength, int threads,
+         boolean virtualThreads, long seed) {
+      if (games < 0 || threads < 1 || sidelength < 2)
+         throw new IllegalArgumentException("Games must be non-negative, threads and sidelength positive");
+      this.games = games;
+      this.policyName = policyName;
+      this.depth = depth;
+      this.sidelength = sidelength;
+      this.threads = threads;
+      this.virtualThreads = virtualThreads;
+      this.seed = seed;
+      // Fail before starting any worker if the policy name is wrong or can't play this size
+      Policy.validate(policyName, sidelength);
+   }
+
+   // Archives every game into PREFIX-<worker>.rec, one file per worker
+   public void setRecordPrefix(String recordPrefix) {
+      this.recordPrefix = recordPrefix;
+   }
+
+   // Shared by the expectimax solvers of every worker for the whole run, positions recur across games
+   public void setCache(EvaluationCache cache) {
+      this.cache = cache;
+   }
+
+   // Replaces the expectimax heuristic, the same instance is used by every worker
+   public void setEvaluator(Evaluator evaluator) {
+      this.evaluator = evaluator;
+   }
+
+   // Plays the tablebase's moves where it has them and the named policy elsewhere
+   public void setTablebase(Tablebase tablebase) {
+      if (tablebase != null && tablebase.getSidelength() != sidelength)
+         throw new IllegalArgumentException("Tablebase is for sidelength " + tablebase.getSidelength()
+               + ", games are played on " + sidelength);
+      this.tablebase = tablebase;
+   }
+
+   // Plays every game, streaming one CSV line per game to results if it isn't null
+   public SimulationSummary run(PrintStream results) throws InterruptedException {
+      AtomicLong nextGame = new AtomicLong();
+      SplittableRandom seeds = new SplittableRandom(seed);
+      List<Callable<SimulationSummary>> workers = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+         SplittableRandom random = seeds.split();
+         Path recordPath = recordPrefix == null ? null : Path.of(recordPrefix + "-" + i + ".rec");
+         workers.add(() -> work(random, nextGame, results, recordPath));
+      }
+
+      if (results != null)
+         results.println(GameResult.CSV_HEADER);
+
+      SimulationSummary summary = new SimulationSummary();
+      try (ExecutorService executor = virtualThreads
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(threads)) {
+         for (Future<SimulationSummary> future : executor.invokeAll(workers)) {
+            summary.merge(future.get());
+         }
+      } catch (ExecutionException e) {
+         throw new IllegalStateException("Simulation worker failed", e.getCause());
+      }
+
+      if (results != null)
+         results.flush();
+      return summary;
+   }
+
+   private SimulationSummary work(SplittableRandom random, AtomicLong nextGame, PrintStream results,
+         Path recordPath) throws IOException {
+      Policy policy = evaluator != null && "expectimax".equalsIgnoreCase(policyName)
+            ? new ExpectimaxPolicy(evaluator, depth)
+            : Policy.create(policyName, random, depth);
+      // Before wrapping, the tablebase policy hides the solver the cache belongs to
+      if (cache != null && policy instanceof ExpectimaxPolicy expectimax)
+         expectimax.getSolver().setCache(cache);
+      if (tablebase != null)
+         policy = new TablebasePolicy(tablebase, policy);
+      SimulationSummary summary = new SimulationSummary();
+
+      try (GameRecordWriter recorder = recordPath == null ? null : new GameRecordWriter(recordPath, sidelength)) {
+         for (long game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+            GameResult result = play(game, policy, recorder);
+            summary.add(result);
+            if (results != null) {
+               String line = result.toCsv();
+               synchronized (results) {
+                  results.println(line);
+               }
+            }
+         }
+      }
+      return summary;
+   }
+
+   // Every game spawns from its own seed, so a single game can be replayed from the results
+   public static long gameSeed(long runSeed, long game) {
+      long z = runSeed + (game + 1) * 0x9E3779B97F4A7C15L;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+   }
+
+   private GameResult play(long game, Policy policy, GameRecordWriter recorder) throws IOException {
+      return play(game, gameSeed(seed, game), sidelength, policy, recorder);
+   }
+
+   // Plays one game to the end, spawning from gameSeed so any policy sees the same spawns on the same seed
+   static GameResult play(long game, long gameSeed, int sidelength, Policy policy, GameRecordWriter recorder)
+         throws IOException {
+      long start = System.nanoTime();
+      Board board = new Board(sidelength, SpawnSource.seeded(gameSeed));
+      if (recorder != null)
+         recorder.beginGame(board, gameSeed);
+      int moves = 0;
+
+      boolean running = !board.isGameOver();
+      while (running) {
+         Direction direction = policy.chooseMove(board);
+         if (direction == null)
+            break;
+         running = board.update(direction);
+         moves++;
+      }
+      if (recorder != null)
+         recorder.endGame();
+
+      return new GameResult(game, gameSeed, 1L << board.getMaxExponent(), board.getScore(), moves,
+            System.nanoTime() - start);
+   }
+
+   public static void main(String[] args) throws IOException, InterruptedException {
+      long games = 1000;
+      String policy = "random";
+      int depth = 2;
+      int sidelength = 4;
+      int threads = Runtime.getRuntime().availableProcessors();
+      boolean virtualThreads = false;
+      long seed = System.nanoTime();
+      String out = null;
+      String record = null;
+      int cacheCapacity = 0;
+      String weights = null;
+      String tablebase = null;
+
+      for (int i = 0; i < args.length; i++) {
+         String arg = args[i];
+         switch (arg) {
+            case "--games" -> games = Long.parseLong(value(args, ++i, arg));
+            case "--policy" -> policy = value(args, ++i, arg);
+            case "--depth" -> depth = Integer.parseInt(value(args, ++i, arg));
+            case "--size" -> sidelength = Integer.parseInt(value(args, ++i, arg));
+            case "--threads" -> threads = Integer.parseInt(value(args, ++i, arg));
+            case "--virtual" -> virtualThreads = true;
+            case "--seed" -> seed = Long.parseLong(value(args, ++i, arg));
+            case "--out" -> out = value(args, ++i, arg);
+            case "--record" -> record = value(args, ++i, arg);
+            case "--cache" -> cacheCapacity = Integer.parseInt(value(args, ++i, arg));
+            case "--weights" -> weights = value(args, ++i, arg);
+            case "--tablebase" -> tablebase = value(args, ++i, arg);
+            default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+         }
+      }
+
+      Simulator simulator = new Simulator(games, policy, depth, sidelength, threads, virtualThreads, seed);
+      simulator.setRecordPrefix(record);
+      EvaluationCache cache = cacheCapacity > 0 ? new EvaluationCache(cacheCapacity) : null;
+      simulator.setCache(cache);
+      if (weights != null)
+         simulator.setEvaluator(NTupleNetwork.map(Path.of(weights)));
+      if (tablebase != null)
+         simulator.setTablebase(Tablebase.open(Path.of(tablebase)));
+      PrintStream results = null;
+      if ("-".equals(out))
+         results = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+      else if (out != null)
+         results = new PrintStream(new BufferedOutputStream(new FileOutputStream(out), 1 << 16), false);
+
+      System.err.printf("Playing %,d games with %s on %dx%d, %d %s threads, seed %d%n", games, policy,
+            sidelength, sidelength, threads, virtualThreads ? "virtual" : "platform", seed);
+      long start = System.nanoTime();
+      SimulationSummary summary = simulator.run(results);
+      double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+      // Closing a stream over stdout would close stdout itself
+      if ("-".equals(out))
+         results.flush();
+      else if (results != null)
+         results.close();
+      // Keep the summary off stdout when the per-game results are streamed there
+      PrintStream summaryOut = "-".equals(out) ? System.err : System.out;
+      summary.print(summaryOut, elapsedSeconds);
+      if (cache != null)
+         summaryOut.println("Evaluation cache: " + cache);
+   }
+
+   private static String value(String[] args, int index, String name) {
+      if (index >= args.length)
+         throw new IllegalArgumentException("Missing value for " + name);
+      return args[index];
+   }
+
+}
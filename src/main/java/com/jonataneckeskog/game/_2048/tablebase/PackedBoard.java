@@ -0,0 +1,184 @@
+package com.jonataneckeskog.game._2048.tablebase;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Boards of up to 3x3 packed into a long, one nibble per cell in row-major order like BitBoard. Rows slide
+// through tables of every possible row, and columns slide as the rows of the transposed board. The eight
+// rotations and reflections of a board share its value, so tables store only the smallest of them.
+final class PackedBoard {
+
+   static final int MAX_SIDELENGTH = 3;
+   static final int MAX_EXPONENT = 15;
+   static final int SYMMETRIES = 8;
+
+   final int sidelength;
+   final int cells;
+   private final long rowMask;
+   // Row results indexed by the row, column 0 in the lowest nibble
+   private final char[] rowLeft;
+   private final char[] rowRight;
+   private final char[] rowMirror;
+
+   PackedBoard(int sidelength) {
+      if (sidelength < 2 || sidelength > MAX_SIDELENGTH)
+         throw new IllegalArgumentException(
+               "Packed boards have sidelength 2 to " + MAX_SIDELENGTH + ", got " + sidelength);
+      this.sidelength = sidelength;
+      cells = sidelength * sidelength;
+      rowMask = (1L << (4 * sidelength)) - 1;
+
+      rowLeft = new char[1 << (4 * sidelength)];
+      rowRight = new char[rowLeft.length];
+      rowMirror = new char[rowLeft.length];
+      int[] result = new int[sidelength];
+      for (int row = 0; row < rowLeft.length; row++) {
+         int size = 0;
+         int pending = 0;
+         for (int i = 0; i < sidelength; i++) {
+            int exponent = (row >> (4 * i)) & 0xF;
+            if (exponent == 0)
+               continue;
+            if (pending == exponent && exponent != MAX_EXPONENT) {
+               result[size - 1] = exponent + 1;
+               pending = 0;
+            } else {
+               result[size++] = exponent;
+               pending = exponent;
+            }
+         }
+         int packed = 0;
+         for (int i = 0; i < size; i++) {
+            packed |= result[i] << (4 * i);
+         }
+         rowLeft[row] = (char) packed;
+      }
+      for (int row = 0; row < rowLeft.length; row++) {
+         rowRight[row] = (char) reverseRow(rowLeft[reverseRow(row)]);
+         rowMirror[row] = (char) reverseRow(row);
+      }
+   }
+
+   long move(long board, Direction direction) {
+      return switch (direction) {
+         case LEFT -> moveRows(board, rowLeft);
+         case RIGHT -> moveRows(board, rowRight);
+         case UP -> transpose(moveRows(transpose(board), rowLeft));
+         case DOWN -> transpose(moveRows(transpose(board), rowRight));
+      };
+   }
+
+   // Writes the board after each move to afterstates[direction.ordinal()], returning the legal moves as a mask
+   // of ordinal bits
+   int afterstates(long board, long[] afterstates) {
+      long transposed = transpose(board);
+      long up = transpose(moveRows(transposed, rowLeft));
+      long down = transpose(moveRows(transposed, rowRight));
+      long right = moveRows(board, rowRight);
+      long left = moveRows(board, rowLeft);
+      afterstates[Direction.UP.ordinal()] = up;
+      afterstates[Direction.DOWN.ordinal()] = down;
+      afterstates[Direction.RIGHT.ordinal()] = right;
+      afterstates[Direction.LEFT.ordinal()] = left;
+
+      int legal = 0;
+      if (up != board)
+         legal |= 1 << Direction.UP.ordinal();
+      if (down != board)
+         legal |= 1 << Direction.DOWN.ordinal();
+      if (right != board)
+         legal |= 1 << Direction.RIGHT.ordinal();
+      if (left != board)
+         legal |= 1 << Direction.LEFT.ordinal();
+      return legal;
+   }
+
+   private long moveRows(long board, char[] table) {
+      long result = 0L;
+      for (int row = 0; row < sidelength; row++) {
+         int shift = 4 * sidelength * row;
+         result |= (long) table[(int) ((board >>> shift) & rowMask)] << shift;
+      }
+      return result;
+   }
+
+   long transpose(long board) {
+      long result = 0L;
+      for (int row = 0; row < sidelength; row++) {
+         for (int column = 0; column < sidelength; column++) {
+            result |= (long) exponent(board, row * sidelength + column) << (4 * (column * sidelength + row));
+         }
+      }
+      return result;
+   }
+
+   // Quarter turns clockwise, then a mirror image if the lowest bit is set: transform = 2 * turns + mirrored
+   long transform(long board, int transform) {
+      for (int turn = 0; turn < transform / 2; turn++) {
+         board = mirror(transpose(board));
+      }
+      return (transform & 1) != 0 ? mirror(board) : board;
+   }
+
+   // The smallest of the board's symmetries, the key it is stored under
+   long canonical(long board) {
+      long canonical = board;
+      long rotated = board;
+      for (int turn = 0; turn < SYMMETRIES / 2; turn++) {
+         if (turn > 0)
+            rotated = mirror(transpose(rotated));
+         canonical = Math.min(canonical, Math.min(rotated, mirror(rotated)));
+      }
+      return canonical;
+   }
+
+   private long mirror(long board) {
+      return moveRows(board, rowMirror);
+   }
+
+   private int reverseRow(int row) {
+      int reversed = 0;
+      for (int i = 0; i < sidelength; i++) {
+         reversed |= ((row >> (4 * i)) & 0xF) << (4 * (sidelength - 1 - i));
+      }
+      return reversed;
+   }
+
+   static int exponent(long board, int cell) {
+      return (int) ((board >>> (4 * cell)) & 0xF);
+   }
+
+   int maxExponent(long board) {
+      int max = 0;
+      for (int cell = 0; cell < cells; cell++) {
+         max = Math.max(max, exponent(board, cell));
+      }
+      return max;
+   }
+
+   // Sum of the tile values, which a move keeps and a spawn raises by 2 or 4
+   long tileSum(long board) {
+      long sum = 0;
+      for (int cell = 0; cell < cells; cell++) {
+         int exponent = exponent(board, cell);
+         if (exponent != 0)
+            sum += 1L << exponent;
+      }
+      return sum;
+   }
+
+   long pack(Board board) {
+      if (board.getSidelength() != sidelength)
+         throw new IllegalArgumentException(
+               "Expected a board with sidelength " + sidelength + ", got " + board.getSidelength());
+      long packed = 0;
+      for (int cell = 0; cell < cells; cell++) {
+         int exponent = board.getExponent(cell / sidelength, cell % sidelength);
+         if (exponent > MAX_EXPONENT)
+            throw new IllegalArgumentException("Tile exponent " + exponent + " doesn't fit in a packed board");
+         packed |= (long) exponent << (4 * cell);
+      }
+      return packed;
+   }
+
+}
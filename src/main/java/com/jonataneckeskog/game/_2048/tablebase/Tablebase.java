@@ -0,0 +1,173 @@
+package com.jonataneckeskog.game._2048.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Memory-mapped answers from TablebaseBuilder: the probability of reaching the target tile with perfect play, and
+// the move that achieves it, for every reachable position of a small board. Positions are grouped into layers by
+// the sum of their tiles and sorted within a layer, so a lookup is a binary search over one layer of the mapping.
+// Only the canonical symmetry of each position is stored, and its move is carried back to the board asked about.
+//
+// File layout, all numbers little-endian:
+//
+//   header:  int MAGIC, int VERSION, int sidelength, int target exponent, int layers, int 0
+//   index:   long[layers + 1] first position of each layer, layer l holding tile sum 2 * l
+//   records: long[positions] canonical packed boards, float[positions] win probabilities,
+//            byte[positions] best Direction ordinal on the canonical board or NO_MOVE
+public class Tablebase {
+
+   static final int MAGIC = 0x32544231;
+   static final int VERSION = 1;
+   static final int HEADER_BYTES = 6 * Integer.BYTES;
+   static final byte NO_MOVE = -1;
+
+   private static final Direction[] DIRECTIONS = Direction.values();
+
+   private final PackedBoard packedBoard;
+   private final int target;
+   private final long[] layerStarts;
+   private final LongBuffer keys;
+   private final FloatBuffer values;
+   private final ByteBuffer moves;
+
+   private Tablebase(PackedBoard packedBoard, int target, long[] layerStarts, LongBuffer keys, FloatBuffer values,
+         ByteBuffer moves) {
+      this.packedBoard = packedBoard;
+      this.target = target;
+      this.layerStarts = layerStarts;
+      this.keys = keys;
+      this.values = values;
+      this.moves = moves;
+   }
+
+   public static Tablebase open(Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         long size = channel.size();
+         if (size > Integer.MAX_VALUE)
+            throw new IOException("Tablebase is larger than a single 2 GB mapping: " + path);
+         MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+         buffer.order(ByteOrder.LITTLE_ENDIAN);
+         if (size < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a tablebase file: " + path);
+         if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported tablebase version " + buffer.getInt(4) + " in " + path);
+
+         int sidelength = buffer.getInt(8);
+         int target = buffer.getInt(12);
+         int layers = buffer.getInt(16);
+         if (sidelength < 2 || sidelength > PackedBoard.MAX_SIDELENGTH || target < 3
+               || target > PackedBoard.MAX_EXPONENT || layers < 0 || HEADER_BYTES + (layers + 1L) * Long.BYTES > size)
+            throw new IOException("Corrupt tablebase header in " + path);
+
+         long[] layerStarts = new long[layers + 1];
+         buffer.slice(HEADER_BYTES, (layers + 1) * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer()
+               .get(layerStarts);
+         long positions = layerStarts[layers];
+         int keysStart = HEADER_BYTES + (layers + 1) * Long.BYTES;
+         long expectedSize = keysStart + positions * (Long.BYTES + Float.BYTES + 1);
+         if (positions < 0 || expectedSize != size)
+            throw new IOException("Expected " + expectedSize + " bytes in " + path + ", found " + size);
+
+         int count = (int) positions;
+         int valuesStart = keysStart + count * Long.BYTES;
+         int movesStart = valuesStart + count * Float.BYTES;
+         LongBuffer keys = buffer.slice(keysStart, count * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+         FloatBuffer values = buffer.slice(valuesStart, count * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+               .asFloatBuffer();
+         ByteBuffer moves = buffer.slice(movesStart, count);
+         return new Tablebase(new PackedBoard(sidelength), target, layerStarts, keys, values, moves);
+      }
+   }
+
+   public int getSidelength() {
+      return packedBoard.sidelength;
+   }
+
+   // Exponent of the tile that counts as a win
+   public int getTarget() {
+      return target;
+   }
+
+   public long size() {
+      return layerStarts[layerStarts.length - 1];
+   }
+
+   // Probability of reaching the target with perfect play, 1 once it is on the board and NaN for positions
+   // the spawn rules can't reach
+   public double winProbability(Board board) {
+      long packed = packedBoard.pack(board);
+      if (packedBoard.maxExponent(packed) >= target)
+         return 1;
+      int index = find(packedBoard.canonical(packed));
+      return index < 0 ? Double.NaN : values.get(index);
+   }
+
+   // The move with the best win probability, null when no move is legal, the target is already reached or the
+   // position isn't in the table
+   public Direction bestMove(Board board) {
+      long packed = packedBoard.pack(board);
+      if (packedBoard.maxExponent(packed) >= target)
+         return null;
+      long canonical = packedBoard.canonical(packed);
+      int index = find(canonical);
+      if (index < 0)
+         return null;
+      byte move = moves.get(index);
+      if (move == NO_MOVE)
+         return null;
+
+      // The move on this board that leads to the same position as the canonical move, up to the same symmetry
+      int transform = 0;
+      while (packedBoard.transform(packed, transform) != canonical) {
+         transform++;
+      }
+      long canonicalAfterstate = packedBoard.move(canonical, DIRECTIONS[move]);
+      for (Direction direction : DIRECTIONS) {
+         long afterstate = packedBoard.move(packed, direction);
+         if (afterstate != packed && packedBoard.transform(afterstate, transform) == canonicalAfterstate)
+            return direction;
+      }
+      throw new IllegalStateException("No move matches the canonical move " + DIRECTIONS[move]);
+   }
+
+   private int find(long packed) {
+      long layer = packedBoard.tileSum(packed) / 2;
+      if (layer >= layerStarts.length - 1)
+         return -1;
+      return search(keys, (int) layerStarts[(int) layer], (int) layerStarts[(int) layer + 1], packed);
+   }
+
+   // Binary search of a sorted range, returning the index of key or -1
+   static int search(LongBuffer keys, int from, int to, long key) {
+      int low = from;
+      int high = to - 1;
+      while (low <= high) {
+         int middle = (low + high) >>> 1;
+         long value = keys.get(middle);
+         if (value < key)
+            low = middle + 1;
+         else if (value > key)
+            high = middle - 1;
+         else
+            return middle;
+      }
+      return -1;
+   }
+
+   @Override
+   public String toString() {
+      return String.format("Tablebase %dx%d to %d, %,d positions", getSidelength(), getSidelength(), 1 << target,
+            size());
+   }
+
+}
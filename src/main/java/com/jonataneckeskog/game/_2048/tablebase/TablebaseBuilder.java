@@ -0,0 +1,343 @@
+package com.jonataneckeskog.game._2048.tablebase;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// Solves a small board exactly. Moves keep the sum of the tiles and every spawn raises it by 2 or 4, so the
+// reachable positions fall into layers by tile sum and each layer only leads to the next two. Generation walks the
+// layers upward from the first spawns, sorting each layer's successors into a deduplicated off-heap key list, and
+// the solve walks back down, where every successor's value is already final, so one pass per layer is exact.
+// Positions are stored only in their canonical symmetry, which cuts the table almost eightfold.
+// Both directions split a layer into chunks for the common fork/join pool.
+// Usage: TablebaseBuilder [--size N] [--target EXPONENT] [--out FILE]
+public class TablebaseBuilder {
+
+   public static final int DEFAULT_SIDELENGTH = 3;
+   public static final int DEFAULT_TARGET = 8;
+
+   static final double TWO_PROBABILITY = 0.9;
+   static final double FOUR_PROBABILITY = 0.1;
+
+   // Positions expanded or solved by one task
+   private static final int CHUNK = 1 << 14;
+   private static final Direction[] DIRECTIONS = Direction.values();
+
+   private final PackedBoard packedBoard;
+   private final int target;
+   private final List<LongBuffer> keys = new ArrayList<>();
+   private final List<FloatBuffer> values = new ArrayList<>();
+   private final List<ByteBuffer> moves = new ArrayList<>();
+   private PrintStream progress;
+
+   public TablebaseBuilder(int sidelength, int target) {
+      packedBoard = new PackedBoard(sidelength);
+      // A spawned 4 would already reach a target of 2 or less
+      if (target < 3 || target > PackedBoard.MAX_EXPONENT)
+         throw new IllegalArgumentException("Target exponent must be between 3 and " + PackedBoard.MAX_EXPONENT);
+      this.target = target;
+   }
+
+   public void setProgress(PrintStream progress) {
+      this.progress = progress;
+   }
+
+   public long size() {
+      long size = 0;
+      for (LongBuffer layer : keys) {
+         size += layer.capacity();
+      }
+      return size;
+   }
+
+   public void build() {
+      generate();
+      solve();
+   }
+
+   private void generate() {
+      keys.clear();
+      List<List<long[]>> pending = new ArrayList<>();
+      for (int cell = 0; cell < packedBoard.cells; cell++) {
+         add(pending, 1, new long[] { packedBoard.canonical(1L << (4 * cell)) });
+         add(pending, 2, new long[] { packedBoard.canonical(2L << (4 * cell)) });
+      }
+
+      for (int layer = 0; layer < pending.size(); layer++) {
+         List<long[]> parts = pending.get(layer);
+         pending.set(layer, null);
+         LongBuffer states = merge(parts == null ? List.of() : parts);
+         keys.add(states);
+         if (progress != null && states.capacity() > 0)
+            progress.printf("layer %d (tile sum %d): %,d positions%n", layer, 2 * layer, states.capacity());
+
+         int chunks = (states.capacity() + CHUNK - 1) / CHUNK;
+         List<long[][]> successors = IntStream.range(0, chunks).parallel()
+               .mapToObj(chunk -> expand(states, chunk * CHUNK, Math.min(states.capacity(), (chunk + 1) * CHUNK)))
+               .toList();
+         for (long[][] successor : successors) {
+            add(pending, layer + 1, successor[0]);
+            add(pending, layer + 2, successor[1]);
+         }
+      }
+   }
+
+   private static void add(List<List<long[]>> pending, int layer, long[] states) {
+      if (states.length == 0)
+         return;
+      while (pending.size() <= layer) {
+         pending.add(null);
+      }
+      if (pending.get(layer) == null)
+         pending.set(layer, new ArrayList<>());
+      pending.get(layer).add(states);
+   }
+
+   // Sorts and deduplicates the successors found for a layer into a direct buffer
+   private static LongBuffer merge(List<long[]> parts) {
+      int total = 0;
+      for (long[] part : parts) {
+         total += part.length;
+      }
+      long[] all = new long[total];
+      int next = 0;
+      for (long[] part : parts) {
+         System.arraycopy(part, 0, all, next, part.length);
+         next += part.length;
+      }
+      Arrays.parallelSort(all);
+      int unique = deduplicate(all, all.length);
+
+      LongBuffer states = ByteBuffer.allocateDirect(unique * Long.BYTES).order(ByteOrder.nativeOrder())
+            .asLongBuffer();
+      states.put(all, 0, unique).flip();
+      return states;
+   }
+
+   private static int deduplicate(long[] sorted, int length) {
+      int unique = 0;
+      for (int i = 0; i < length; i++) {
+         if (unique == 0 || sorted[i] != sorted[unique - 1])
+            sorted[unique++] = sorted[i];
+      }
+      return unique;
+   }
+
+   // Successors with a 2 and with a 4 spawned after every legal move that doesn't already reach the target
+   private long[][] expand(LongBuffer states, int from, int to) {
+      LongArray twos = new LongArray();
+      LongArray fours = new LongArray();
+      long[] afterstates = new long[DIRECTIONS.length];
+      for (int i = from; i < to; i++) {
+         for (int legal = packedBoard.afterstates(states.get(i), afterstates); legal != 0; legal &= legal - 1) {
+            long afterstate = afterstates[Integer.numberOfTrailingZeros(legal)];
+            if (packedBoard.maxExponent(afterstate) >= target)
+               continue;
+            for (int cell = 0; cell < packedBoard.cells; cell++) {
+               if (PackedBoard.exponent(afterstate, cell) != 0)
+                  continue;
+               twos.add(packedBoard.canonical(afterstate | 1L << (4 * cell)));
+               fours.add(packedBoard.canonical(afterstate | 2L << (4 * cell)));
+            }
+         }
+      }
+      return new long[][] { twos.sortedUnique(), fours.sortedUnique() };
+   }
+
+   private void solve() {
+      values.clear();
+      moves.clear();
+      int layers = keys.size();
+      FloatBuffer[] solvedValues = new FloatBuffer[layers];
+      ByteBuffer[] solvedMoves = new ByteBuffer[layers];
+      for (int layer = layers - 1; layer >= 0; layer--) {
+         int count = keys.get(layer).capacity();
+         FloatBuffer layerValues = ByteBuffer.allocateDirect(count * Float.BYTES).order(ByteOrder.nativeOrder())
+               .asFloatBuffer();
+         ByteBuffer layerMoves = ByteBuffer.allocateDirect(count);
+         int current = layer;
+         IntStream.range(0, (count + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+            long[] afterstates = new long[DIRECTIONS.length];
+            for (int i = chunk * CHUNK; i < Math.min(count, (chunk + 1) * CHUNK); i++) {
+               solve(current, i, afterstates, solvedValues, layerValues, layerMoves);
+            }
+         });
+         solvedValues[layer] = layerValues;
+         solvedMoves[layer] = layerMoves;
+      }
+      values.addAll(Arrays.asList(solvedValues));
+      moves.addAll(Arrays.asList(solvedMoves));
+   }
+
+   // The move with the highest win probability, averaging over every spawn after it
+   private void solve(int layer, int index, long[] afterstates, FloatBuffer[] solvedValues, FloatBuffer layerValues,
+         ByteBuffer layerMoves) {
+      double best = 0;
+      byte bestMove = Tablebase.NO_MOVE;
+      for (int legal = packedBoard.afterstates(keys.get(layer).get(index), afterstates); legal != 0;
+            legal &= legal - 1) {
+         int direction = Integer.numberOfTrailingZeros(legal);
+         long afterstate = afterstates[direction];
+         double value = packedBoard.maxExponent(afterstate) >= target
+               ? 1
+               : spawnValue(afterstate, layer, solvedValues);
+         if (bestMove == Tablebase.NO_MOVE || value > best) {
+            best = value;
+            bestMove = (byte) direction;
+         }
+      }
+      layerValues.put(index, (float) best);
+      layerMoves.put(index, bestMove);
+   }
+
+   private double spawnValue(long afterstate, int layer, FloatBuffer[] solvedValues) {
+      double sum = 0;
+      int empty = 0;
+      for (int cell = 0; cell < packedBoard.cells; cell++) {
+         if (PackedBoard.exponent(afterstate, cell) != 0)
+            continue;
+         empty++;
+         sum += TWO_PROBABILITY * lookup(layer + 1, afterstate | 1L << (4 * cell), solvedValues)
+               + FOUR_PROBABILITY * lookup(layer + 2, afterstate | 2L << (4 * cell), solvedValues);
+      }
+      return sum / empty;
+   }
+
+   private float lookup(int layer, long state, FloatBuffer[] solvedValues) {
+      LongBuffer layerKeys = keys.get(layer);
+      int index = Tablebase.search(layerKeys, 0, layerKeys.capacity(), packedBoard.canonical(state));
+      if (index < 0)
+         throw new IllegalStateException("Successor " + Long.toHexString(state) + " was never generated");
+      return solvedValues[layer].get(index);
+   }
+
+   // Writes the table to a temporary file first so a failed write keeps any previous table
+   public void write(Path path) throws IOException {
+      if (values.size() != keys.size())
+         throw new IllegalStateException("Build the tablebase before writing it");
+      int layers = keys.size();
+      Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+         ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_BYTES + (layers + 1) * Long.BYTES)
+               .order(ByteOrder.LITTLE_ENDIAN);
+         header.putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION).putInt(packedBoard.sidelength).putInt(target)
+               .putInt(layers).putInt(0);
+         long start = 0;
+         for (LongBuffer layer : keys) {
+            header.putLong(start);
+            start += layer.capacity();
+         }
+         header.putLong(start);
+         writeFully(channel, header.flip());
+
+         ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+         for (LongBuffer layer : keys) {
+            LongBuffer longs = chunk.clear().asLongBuffer();
+            for (int from = 0; from < layer.capacity(); from += longs.capacity()) {
+               int count = Math.min(longs.capacity(), layer.capacity() - from);
+               longs.clear().put(layer.slice(from, count));
+               writeFully(channel, chunk.clear().limit(count * Long.BYTES));
+            }
+         }
+         for (FloatBuffer layer : values) {
+            FloatBuffer floats = chunk.clear().asFloatBuffer();
+            for (int from = 0; from < layer.capacity(); from += floats.capacity()) {
+               int count = Math.min(floats.capacity(), layer.capacity() - from);
+               floats.clear().put(layer.slice(from, count));
+               writeFully(channel, chunk.clear().limit(count * Float.BYTES));
+            }
+         }
+         for (ByteBuffer layer : moves) {
+            writeFully(channel, layer.duplicate().clear());
+         }
+      }
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+         channel.write(buffer);
+      }
+   }
+
+   // Growable list of successors, sorted and deduplicated before it joins a layer
+   private static class LongArray {
+      private long[] values = new long[1024];
+      private int size;
+
+      void add(long value) {
+         if (size == values.length)
+            values = Arrays.copyOf(values, 2 * size);
+         values[size++] = value;
+      }
+
+      long[] sortedUnique() {
+         Arrays.sort(values, 0, size);
+         return Arrays.copyOf(values, deduplicate(values, size));
+      }
+   }
+
+   public static void main(String[] args) throws IOException {
+      int sidelength = DEFAULT_SIDELENGTH;
+      int target = DEFAULT_TARGET;
+      String out = null;
+
+      for (int i = 0; i < args.length; i++) {
+         String arg = args[i];
+         switch (arg) {
+            case "--size" -> sidelength = Integer.parseInt(value(args, ++i, arg));
+            case "--target" -> target = Integer.parseInt(value(args, ++i, arg));
+            case "--out" -> out = value(args, ++i, arg);
+            default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+         }
+      }
+      if (out == null)
+         out = "tablebase-" + sidelength + "x" + sidelength + "-" + (1 << target) + ".bin";
+
+      TablebaseBuilder builder = new TablebaseBuilder(sidelength, target);
+      builder.setProgress(System.out);
+      long start = System.nanoTime();
+      builder.build();
+      double solvedSeconds = (System.nanoTime() - start) / 1e9;
+      builder.write(Path.of(out));
+      System.out.printf("Solved %,d positions in %.1f s, wrote %s%n", builder.size(), solvedSeconds, out);
+
+      // A new game starts with one spawned tile
+      Tablebase tablebase = Tablebase.open(Path.of(out));
+      Board board = Board.empty(sidelength, SpawnSource.threadLocal());
+      double probability = 0;
+      for (int cell = 0; cell < sidelength * sidelength; cell++) {
+         board.setExponent(cell / sidelength, cell % sidelength, 1);
+         probability += TWO_PROBABILITY * tablebase.winProbability(board);
+         board.setExponent(cell / sidelength, cell % sidelength, 2);
+         probability += FOUR_PROBABILITY * tablebase.winProbability(board);
+         board.setExponent(cell / sidelength, cell % sidelength, 0);
+      }
+      System.out.printf("%s, perfect play reaches %d in %.4f%% of games%n", tablebase, 1 << target,
+            100 * probability / (sidelength * sidelength));
+   }
+
+   private static String value(String[] args, int index, String name) {
+      if (index >= args.length)
+         throw new IllegalArgumentException("Missing value for " + name);
+      return args[index];
+   }
+
+}
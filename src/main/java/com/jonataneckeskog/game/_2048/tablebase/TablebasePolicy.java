@@ -0,0 +1,36 @@
+package com.jonataneckeskog.game._2048.tablebase;
+
+import com.jonataneckeskog.game._2048.ai.GreedyPolicy;
+import com.jonataneckeskog.game._2048.ai.Policy;
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+// Plays the tablebase's perfect move and hands over to another policy once the target tile is on the board or
+// for positions the table doesn't hold. The tablebase can be shared by any number of these.
+public class TablebasePolicy implements Policy {
+
+   private final Tablebase tablebase;
+   private final Policy fallback;
+
+   public TablebasePolicy(Tablebase tablebase) {
+      this(tablebase, new GreedyPolicy());
+   }
+
+   public TablebasePolicy(Tablebase tablebase, Policy fallback) {
+      this.tablebase = tablebase;
+      this.fallback = fallback;
+   }
+
+   @Override
+   public Direction chooseMove(Board board) {
+      if (board.getSidelength() != tablebase.getSidelength())
+         return fallback.chooseMove(board);
+      Direction move = tablebase.bestMove(board);
+      return move != null ? move : fallback.chooseMove(board);
+   }
+
+   public Tablebase getTablebase() {
+      return tablebase;
+   }
+
+}
@@ -0,0 +1,52 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Symmetry;
+
+class EvaluationCacheTest {
+
+   @Test
+   void testGetAndEviction() {
+      EvaluationCache cache = new EvaluationCache(64);
+      assertEquals(64, cache.capacity());
+
+      cache.put(42L, 3, 1.5);
+      assertEquals(1.5, cache.get(42L, 3));
+      assertTrue(Double.isNaN(cache.get(42L, 2)), "Entries should only match at the same depth");
+      assertEquals(1, cache.getHits());
+      assertEquals(1, cache.getMisses());
+
+      for (long key = 0; key < 1000; key++) {
+         cache.put(key * 31, 1, key);
+      }
+      assertTrue(cache.getEvictions() >= 1000 - 64);
+
+      cache.clear();
+      assertTrue(Double.isNaN(cache.get(31L, 1)));
+   }
+
+   @Test
+   void testSharedBySolvers() {
+      long board = BitBoard.buildFromString("1,2,3,0,2,3,4,5,0,0,1,2,0,0,0,1").getBits();
+      EvaluationCache cache = new EvaluationCache(1 << 16);
+
+      Solver sequential = new Solver(3);
+      sequential.setCache(cache);
+      sequential.bestMove(board);
+      long firstMisses = cache.getMisses();
+
+      try (ParallelSolver parallel = new ParallelSolver(3, 2)) {
+         parallel.setCache(cache);
+         for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            long transformed = Symmetry.apply(board, t);
+            assertEquals(Symmetry.map(sequential.bestMove(board), t), parallel.bestMove(transformed));
+            assertEquals(sequential.getLastValue(), parallel.getLastValue());
+         }
+      }
+      assertEquals(firstMisses, cache.getMisses(), "Symmetric searches should be answered from the cache");
+      assertTrue(cache.getHitRate() > 0);
+   }
+}
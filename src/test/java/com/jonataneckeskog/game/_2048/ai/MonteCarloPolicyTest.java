@@ -0,0 +1,76 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+class MonteCarloPolicyTest {
+
+   @Test
+   void testPrefersMerge() {
+      // Sliding sideways merges the 512s at once, sliding down needs the random move after it to do so
+      Board board = Board.buildFromString("9,9,0,0,0,0,0,0,0,0,0,0,0,0,0,0");
+      MonteCarloPolicy policy = new MonteCarloPolicy(64, 1);
+      Direction move = policy.chooseMove(board);
+      assertTrue(move == Direction.LEFT || move == Direction.RIGHT, "Should take the merge, took " + move);
+
+      MonteCarloPolicy.MoveStatistics[] statistics = policy.getLastStatistics();
+      assertNull(statistics[Direction.UP.ordinal()], "UP isn't legal and shouldn't be played out");
+      MonteCarloPolicy.MoveStatistics left = statistics[Direction.LEFT.ordinal()];
+      assertEquals(64, left.rollouts());
+      assertTrue(left.meanScore() >= 1024);
+      assertTrue(left.confidence() >= 0);
+      assertTrue(policy.getLastRolloutsPerSecond() > 0);
+   }
+
+   @Test
+   void testGameOver() {
+      Board board = Board.buildFromString("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,1");
+      assertNull(new MonteCarloPolicy(8, 0).chooseMove(board));
+      assertThrows(IllegalArgumentException.class, () -> new MonteCarloPolicy(0, 0));
+   }
+
+   @Test
+   void testPlaysGames() {
+      Board board = new Board();
+      MonteCarloPolicy policy = new MonteCarloPolicy(20, 0);
+      boolean running = true;
+      while (running) {
+         Direction move = policy.chooseMove(board);
+         if (move == null)
+            break;
+         running = board.update(move);
+      }
+      assertTrue(board.getMaxExponent() >= 8, "Playouts should comfortably reach 256, got " + board);
+   }
+
+   @Test
+   void testSeededReplays() {
+      ForkJoinPool single = new ForkJoinPool(1);
+      ForkJoinPool several = new ForkJoinPool(3);
+      try {
+         MonteCarloPolicy first = new MonteCarloPolicy(40, 0, single, new SplittableRandom(21));
+         MonteCarloPolicy second = new MonteCarloPolicy(40, 0, several, new SplittableRandom(21));
+         Board firstBoard = new Board(4, SpawnSource.seeded(7));
+         Board secondBoard = new Board(4, SpawnSource.seeded(7));
+         for (int moves = 0; moves < 20; moves++) {
+            Direction move = first.chooseMove(firstBoard);
+            assertEquals(move, second.chooseMove(secondBoard), "Equal seeds should pick equal moves");
+            assertArrayEquals(first.getLastStatistics(), second.getLastStatistics(),
+                  "Playouts shouldn't depend on how the pool schedules them");
+            if (!firstBoard.update(move) | !secondBoard.update(move))
+               break;
+         }
+      } finally {
+         single.shutdown();
+         several.shutdown();
+      }
+   }
+
+}
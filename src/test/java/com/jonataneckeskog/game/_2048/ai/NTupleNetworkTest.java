@@ -0,0 +1,95 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Symmetry;
+
+class NTupleNetworkTest {
+
+   private static final int[][] TUPLES = NTupleNetwork.parseTuples("0,1,2,3; 4,5,6,7; 0,1,4,5");
+
+   @TempDir
+   Path directory;
+
+   @Test
+   void testSymmetric() {
+      NTupleNetwork network = randomNetwork(2048);
+      Random random = new Random(4096);
+      for (int i = 0; i < 200; i++) {
+         long board = random.nextLong();
+         double value = network.evaluate(board);
+         for (int t = 1; t < Symmetry.TRANSFORMS; t++) {
+            assertEquals(value, network.evaluate(Symmetry.apply(board, t)), 1e-3,
+                  "Symmetric boards should get the same value");
+         }
+      }
+   }
+
+   @Test
+   void testLookup() {
+      NTupleNetwork network = new NTupleNetwork(new int[][] { { 0, 1 } });
+      assertEquals(256, network.size());
+      // Cells 0 and 1 hold exponents 3 and 2, the transposed tuple covers cells 0 and 4
+      long board = BitBoard.buildFromString("3,2,0,0,0,0,0,0,0,0,0,0,0,0,0,0").getBits();
+      network.setWeight(0x32, 10);
+      network.setWeight(0x00, 1);
+      assertEquals(10 + 6, network.evaluate(board), 1e-9,
+            "The tuple should read 3,2 once, 3,0 once and 0,0 in the six other symmetries");
+
+      network.update(board, 0.5f);
+      assertEquals(10.5f, network.getWeight(0x32));
+      assertEquals(0.5f, network.getWeight(0x30));
+      assertEquals(4f, network.getWeight(0x00));
+   }
+
+   @Test
+   void testSaveAndLoad() throws IOException {
+      NTupleNetwork network = randomNetwork(1);
+      Path path = directory.resolve("weights.bin");
+      network.save(path);
+      assertEquals(3 * 4 + 3 * 5 * 4 + network.size() * 4L, Files.size(path));
+
+      NTupleNetwork mapped = NTupleNetwork.map(path);
+      NTupleNetwork loaded = NTupleNetwork.load(path);
+      assertTrue(mapped.isReadOnly());
+      assertFalse(loaded.isReadOnly());
+      assertArrayEquals(TUPLES, loaded.getTuples());
+
+      Random random = new Random(8);
+      for (int i = 0; i < 100; i++) {
+         long board = random.nextLong();
+         assertEquals(network.evaluate(board), mapped.evaluate(board));
+         assertEquals(network.evaluate(board), loaded.evaluate(board));
+      }
+      assertThrows(UnsupportedOperationException.class, () -> mapped.update(0L, 1));
+
+      Path bad = directory.resolve("bad.bin");
+      Files.write(bad, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+      assertThrows(IOException.class, () -> NTupleNetwork.map(bad));
+   }
+
+   @Test
+   void testInvalidTuples() {
+      assertThrows(IllegalArgumentException.class, () -> new NTupleNetwork(new int[0][]));
+      assertThrows(IllegalArgumentException.class, () -> new NTupleNetwork(new int[][] { { 0, 16 } }));
+      assertThrows(IllegalArgumentException.class, () -> new NTupleNetwork(new int[][] { { 0, 1, 2, 3, 4, 5, 6, 7 } }));
+   }
+
+   private static NTupleNetwork randomNetwork(long seed) {
+      NTupleNetwork network = new NTupleNetwork(TUPLES);
+      Random random = new Random(seed);
+      for (int i = 0; i < network.size(); i++) {
+         network.setWeight(i, random.nextFloat());
+      }
+      return network;
+   }
+
+}
@@ -0,0 +1,43 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Direction;
+
+class ParallelSolverTest {
+
+   @Test
+   void testMatchesSequentialSearch() {
+      String[] positions = {
+            "1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1",
+            "1,2,3,0,2,3,4,5,0,0,1,2,0,0,0,1",
+            "6,5,4,1,2,3,2,1,1,1,0,0,0,0,0,0",
+            "10,9,8,7,3,4,5,6,2,1,1,0,0,0,0,1" };
+
+      try (ParallelSolver parallel = new ParallelSolver(3, 4)) {
+         for (String position : positions) {
+            long board = BitBoard.buildFromString(position).getBits();
+            Solver sequential = new Solver(3);
+
+            assertEquals(sequential.bestMove(board), parallel.bestMove(board));
+            assertEquals(sequential.getLastValue(), parallel.getLastValue());
+         }
+      }
+   }
+
+   @Test
+   void testGameOverAndTimeBudget() {
+      try (ParallelSolver solver = new ParallelSolver(20, Duration.ofMillis(50), 2)) {
+         long lost = BitBoard.buildFromString("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,1").getBits();
+         assertNull(solver.bestMove(lost));
+
+         Direction move = solver.bestMove(BitBoard.buildFromString("1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1").getBits());
+         assertNotNull(move);
+         assertTrue(solver.getLastDepth() < 20);
+      }
+   }
+}
@@ -0,0 +1,89 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+class SolverTest {
+
+   @Test
+   void testLegalMove() {
+      Solver solver = new Solver(2);
+      Board board = Board.buildFromString("1,1,0,0,0,0,0,0,0,0,0,0,0,0,0,0");
+
+      Direction move = solver.bestMove(board);
+      assertNotNull(move);
+      assertNotEquals(Direction.UP, move, "Moving up doesn't change the board");
+      assertEquals(2, solver.getLastDepth());
+      assertTrue(solver.getLastNodeCount() > 0);
+   }
+
+   @Test
+   void testGameOver() {
+      Solver solver = new Solver(3);
+      BitBoard board = BitBoard.buildFromString("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,1");
+
+      assertNull(solver.bestMove(board.getBits()), "There is no move to make on a lost board");
+   }
+
+   @Test
+   void testAvoidsLosingMove() {
+      // Heuristic is negative here because of the 2048, and moving up leaves no move after any spawn
+      long board = BitBoard.buildFromString("3,11,3,0,1,8,6,6,5,3,5,3,8,5,6,4").getBits();
+      assertTrue(new Heuristic().evaluate(BitBoard.move(board, Direction.LEFT)) < 0);
+
+      for (int depth = 2; depth <= 3; depth++) {
+         assertNotEquals(Direction.UP, new Solver(depth).bestMove(board), "Moving up loses at depth " + depth);
+      }
+   }
+
+   @Test
+   void testDeterministic() {
+      long board = BitBoard.buildFromString("1,2,3,0,2,3,4,5,0,0,1,2,0,0,0,1").getBits();
+
+      Direction first = new Solver(3).bestMove(board);
+      Direction second = new Solver(3).bestMove(board);
+      assertEquals(first, second);
+   }
+
+   @Test
+   void testTimeBudget() {
+      Solver solver = new Solver(new Heuristic(), 20, Duration.ofMillis(50), 1 << 16);
+      long board = BitBoard.buildFromString("1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1").getBits();
+
+      long start = System.nanoTime();
+      assertNotNull(solver.bestMove(board));
+      long elapsed = System.nanoTime() - start;
+
+      assertTrue(solver.getLastDepth() >= 1 && solver.getLastDepth() < 20);
+      assertTrue(elapsed < Duration.ofMillis(500).toNanos(), "Search should stop close to its time budget");
+   }
+
+   @Test
+   void testPlaysGames() {
+      long first = playGame(2048);
+      assertEquals(first, playGame(2048), "A seeded game should replay move for move");
+   }
+
+   // Plays 300 moves of a seeded game at depth 2 and returns the final board
+   private static long playGame(long seed) {
+      Solver solver = new Solver(2);
+      BitBoard board = new BitBoard(SpawnSource.seeded(seed));
+      int moves = 0;
+
+      while (!board.isGameOver() && moves < 300) {
+         Direction move = solver.bestMove(board.getBits());
+         assertTrue(board.move(move), "Solver should only pick legal moves");
+         board.fillRandomEmptyCell();
+         moves++;
+      }
+      assertEquals(300, moves, "A depth 2 search should survive the opening");
+      return board.getBits();
+   }
+}
@@ -0,0 +1,48 @@
+package com.jonataneckeskog.game._2048.ai;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+class TDTrainerTest {
+
+   private static final int[][] TUPLES = NTupleNetwork.parseTuples("0,1,2,3;4,5,6,7;0,1,4,5;1,2,5,6");
+
+   @TempDir
+   Path directory;
+
+   @Test
+   void testLearns() throws IOException, InterruptedException {
+      TDTrainer trainer = new TDTrainer(new NTupleNetwork(TUPLES), 0.1, 2, 2048);
+      Path checkpoint = directory.resolve("weights.bin");
+      trainer.setCheckpoint(checkpoint, 500);
+      trainer.train(2000);
+      assertEquals(2000, trainer.getGames());
+      assertTrue(Files.exists(checkpoint));
+
+      // Random play averages around 1,000 points
+      NTupleNetwork trained = NTupleNetwork.load(checkpoint);
+      TDTrainer evaluation = new TDTrainer(trained, 1e-9, 1, 0);
+      SpawnSource spawnSource = SpawnSource.seeded(4096);
+      for (int game = 0; game < 100; game++) {
+         evaluation.playGame(spawnSource);
+      }
+      assertTrue(evaluation.getMeanScore() > 2500,
+            "Greedy play on the trained weights should beat random play, got " + evaluation.getMeanScore());
+   }
+
+   @Test
+   void testRejectsMappedNetworks() throws IOException {
+      Path path = directory.resolve("mapped.bin");
+      new NTupleNetwork(TUPLES).save(path);
+      NTupleNetwork mapped = NTupleNetwork.map(path);
+      assertThrows(IllegalArgumentException.class, () -> new TDTrainer(mapped, 0.1, 1, 0));
+   }
+
+}
@@ -0,0 +1,101 @@
+package com.jonataneckeskog.game._2048.env;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Path;
+import java.util.Random;
+
+import com.jonataneckeskog.game._2048.game.BoardBatch;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+class EnvironmentServerTest {
+
+   @Test
+   void testMatchesLocalBatch() throws IOException {
+      try (EnvironmentServer server = new EnvironmentServer(new InetSocketAddress("127.0.0.1", 0))) {
+         server.start();
+         playAgainstLocalBatch(server.getAddress());
+      }
+   }
+
+   @Test
+   void testUnixSocketAndErrors(@TempDir Path directory) throws IOException {
+      SocketAddress address = UnixDomainSocketAddress.of(directory.resolve("env.sock"));
+      try (EnvironmentServer server = new EnvironmentServer(address)) {
+         server.start();
+         try (EnvironmentClient client = new EnvironmentClient(address)) {
+            assertThrows(IOException.class, () -> client.resetGame(0), "Steps before a reset should fail");
+            assertThrows(IOException.class, () -> client.reset(0, 4, 1));
+
+            client.reset(2, 4, 1);
+            assertThrows(IOException.class, () -> client.resetGame(5));
+            IOException skip = assertThrows(IOException.class, () -> client.step(0, null));
+            assertTrue(skip.getMessage().contains("SKIP"), skip.getMessage());
+            // The connection stays usable after an error
+            client.step(1, Direction.LEFT);
+            assertEquals(4, client.getSidelength());
+         }
+      }
+   }
+
+   private static void playAgainstLocalBatch(SocketAddress address) throws IOException {
+      int games = 8;
+      BoardBatch local = new BoardBatch(games, 4, SpawnSource.seeded(99));
+      Random random = new Random(3);
+      Direction[] directions = new Direction[games];
+      boolean[] moved = new boolean[games];
+      long[] rewards = new long[games];
+      boolean[] done = new boolean[games];
+
+      try (EnvironmentClient client = new EnvironmentClient(address)) {
+         client.reset(games, 4, 99);
+         assertObservations(local, client);
+
+         for (int step = 0; step < 500; step++) {
+            if (step % 2 == 0) {
+               int game = random.nextInt(games);
+               Direction direction = Direction.values()[random.nextInt(4)];
+               long reward = local.step(game, direction);
+               client.step(game, direction);
+               assertEquals(Math.max(reward, 0), client.getReward(game));
+               assertEquals(reward >= 0, client.isMoved(game));
+               assertEquals(local.isGameOver(game), client.isDone(game));
+            } else {
+               for (int game = 0; game < games; game++) {
+                  directions[game] = random.nextInt(8) == 0 ? null : Direction.values()[random.nextInt(4)];
+               }
+               local.step(directions, moved, rewards, done);
+               client.batchStep(directions);
+               for (int game = 0; game < games; game++) {
+                  assertEquals(rewards[game], client.getReward(game));
+                  assertEquals(moved[game], client.isMoved(game));
+                  assertEquals(done[game], client.isDone(game));
+               }
+            }
+
+            for (int game = 0; game < games; game++) {
+               if (local.isGameOver(game)) {
+                  local.reset(game);
+                  client.resetGame(game);
+               }
+            }
+            assertObservations(local, client);
+         }
+      }
+   }
+
+   private static void assertObservations(BoardBatch local, EnvironmentClient client) {
+      byte[] expected = new byte[local.getGames() * 16];
+      for (int game = 0; game < local.getGames(); game++) {
+         local.copyTiles(game, expected, game * 16);
+      }
+      assertArrayEquals(expected, client.getObservations());
+   }
+}
@@ -0,0 +1,124 @@
+package com.jonataneckeskog.game._2048.game;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+class BitBoardTest {
+
+   @Test
+   void testInitialBoard() {
+      BitBoard board = new BitBoard();
+      assertEquals(15, board.getNumberOfEmptyCells(), "Bitboard should only contain one filled cell after initialization");
+   }
+
+   @Test
+   void testConversion() {
+      String stringData = "2,2,0,0,0,0,0,0,3,0,0,0,0,1,0,15";
+      Board board = Board.buildFromString(stringData);
+      BitBoard bitBoard = BitBoard.buildFromString(stringData);
+
+      assertEquals(2, bitBoard.getExponent(0, 0));
+      assertEquals(15, bitBoard.getExponent(3, 3));
+      assertEquals(board, bitBoard.toBoard());
+      assertEquals(bitBoard, BitBoard.fromBoard(board));
+
+      assertThrows(IllegalArgumentException.class,
+            () -> BitBoard.buildFromString("16,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0"),
+            "Should throw for exponents that don't fit in a nibble");
+      assertThrows(IllegalArgumentException.class,
+            () -> BitBoard.buildFromString("0,0,0,0,0,0,0,0,0"),
+            "Should throw for boards that aren't 4x4");
+   }
+
+   @Test
+   void testMoveDirections() {
+      String stringData = "2,2,0,0,0,0,0,0,3,0,0,0,0,1,0,0";
+
+      assertMove(stringData, 'U', "2,2,0,0,3,1,0,0,0,0,0,0,0,0,0,0");
+      assertMove(stringData, 'D', "0,0,0,0,0,0,0,0,2,2,0,0,3,1,0,0");
+      assertMove(stringData, 'R', "0,0,0,3,0,0,0,0,0,0,0,3,0,0,0,1");
+      assertMove(stringData, 'L', "3,0,0,0,0,0,0,0,3,0,0,0,1,0,0,0");
+      assertMove("2,2,3,1,4,4,4,4,8,8,9,3,1,1,0,1", 'W', "3,3,1,0,5,5,0,0,9,9,3,0,2,1,0,0");
+
+      BitBoard full = BitBoard.buildFromString("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,1");
+      assertFalse(full.move(Direction.UP), "Move should return false when the board state is unchanged");
+      assertThrows(IllegalArgumentException.class, () -> full.move('X'));
+   }
+
+   @Test
+   void testMaxExponentDoesNotMerge() {
+      BitBoard board = BitBoard.buildFromString("15,15,0,0,0,0,0,0,0,0,0,0,0,0,0,0");
+      assertFalse(board.move(Direction.LEFT));
+      assertTrue(board.move(Direction.RIGHT));
+      assertEquals(BitBoard.buildFromString("0,0,15,15,0,0,0,0,0,0,0,0,0,0,0,0"), board);
+   }
+
+   @Test
+   void testMatchesBoard() {
+      Random random = new Random(2048);
+      Direction[] directions = Direction.values();
+
+      for (int game = 0; game < 50; game++) {
+         BitBoard bitBoard = new BitBoard();
+         while (!bitBoard.isGameOver()) {
+            Board board = bitBoard.toBoard();
+            Direction direction = directions[random.nextInt(directions.length)];
+
+            boolean expectedMoved = board.move(direction.toString().charAt(0));
+            boolean moved = bitBoard.move(direction);
+
+            assertEquals(expectedMoved, moved);
+            assertEquals(board, bitBoard.toBoard());
+            assertEquals(board.isGameOver(), bitBoard.isGameOver());
+
+            if (moved)
+               bitBoard.fillRandomEmptyCell();
+         }
+      }
+   }
+
+   @Test
+   void testUpdate() {
+      BitBoard board1 = BitBoard.buildFromString("1,1,0,0,0,0,0,0,0,0,0,0,0,0,0,0");
+      assertTrue(board1.update('W'), "Update should return true for a position that isn't over");
+      assertEquals(14, board1.getNumberOfEmptyCells(), "Bitboard should contain two digits after updating");
+
+      BitBoard board2 = BitBoard.buildFromString("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,1");
+      assertFalse(board2.update('S'), "Should return false because the board is full with no legal moves");
+   }
+
+   @Test
+   void testAfterstates() {
+      Random random = new Random(4096);
+      Direction[] directions = Direction.values();
+      long[] afterstates = new long[2 * directions.length];
+      long[] rewards = new long[2 * directions.length];
+
+      for (int game = 0; game < 20; game++) {
+         BitBoard bitBoard = new BitBoard(SpawnSource.seeded(game));
+         while (!bitBoard.isGameOver()) {
+            long bits = bitBoard.getBits();
+            int legal = BitBoard.afterstates(bits, afterstates, rewards, directions.length);
+            for (Direction direction : directions) {
+               Board board = bitBoard.toBoard();
+               boolean moved = board.move(direction);
+               int slot = directions.length + direction.ordinal();
+               assertEquals(BitBoard.move(bits, direction), afterstates[slot]);
+               assertEquals(moved, (legal & (1 << direction.ordinal())) != 0);
+               assertEquals(board.getScore(), rewards[slot], "Reward should match the score of the move");
+            }
+            bitBoard.move(directions[random.nextInt(directions.length)]);
+            if (bitBoard.getBits() != bits)
+               bitBoard.fillRandomEmptyCell();
+         }
+      }
+   }
+
+   private static void assertMove(String start, char direction, String expected) {
+      BitBoard board = BitBoard.buildFromString(start);
+      assertTrue(board.move(direction), "Move should return true since the board state changed");
+      assertEquals(BitBoard.buildFromString(expected), board);
+   }
+}
@@ -0,0 +1,72 @@
+package com.jonataneckeskog.game._2048.game;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+class BoardBatchTest {
+
+   @Test
+   void testMatchesBoards() {
+      for (int sidelength : new int[] { 3, 4, 5 }) {
+         int games = 32;
+         BoardBatch batch = new BoardBatch(games, sidelength, SpawnSource.seeded(7));
+         SpawnSource shared = SpawnSource.seeded(7);
+         Board[] boards = new Board[games];
+         for (int game = 0; game < games; game++) {
+            boards[game] = new Board(sidelength, shared);
+         }
+
+         Random random = new Random(sidelength);
+         Direction[] directions = new Direction[games];
+         boolean[] moved = new boolean[games];
+         long[] rewards = new long[games];
+         boolean[] gameOver = new boolean[games];
+         for (int step = 0; step < 300; step++) {
+            for (int game = 0; game < games; game++) {
+               directions[game] = boards[game].isGameOver() || random.nextInt(10) == 0
+                     ? null
+                     : Direction.values()[random.nextInt(4)];
+            }
+
+            batch.step(directions, moved, rewards, gameOver);
+            for (int game = 0; game < games; game++) {
+               Board board = boards[game];
+               long scoreBefore = board.getScore();
+               boolean expectedMoved = directions[game] != null && board.move(directions[game]);
+               if (expectedMoved)
+                  board.fillRandomEmptyCell();
+
+               assertEquals(expectedMoved, moved[game]);
+               assertEquals(board.getScore() - scoreBefore, rewards[game]);
+               assertEquals(board.isGameOver(), gameOver[game]);
+               assertEquals(board.getScore(), batch.getScore(game));
+               assertEquals(board.getNumberOfEmptyCells(), batch.getNumberOfEmptyCells(game));
+               assertEquals(board, batch.toBoard(game));
+            }
+         }
+      }
+   }
+
+   @Test
+   void testResetAndBounds() {
+      BoardBatch batch = new BoardBatch(2, 4, SpawnSource.seeded(1));
+      batch.step(new Direction[] { Direction.UP, Direction.LEFT }, null, null, null);
+      batch.reset(1);
+      assertEquals(15, batch.getNumberOfEmptyCells(1));
+      assertEquals(0, batch.getScore(1));
+
+      byte[] out = new byte[16];
+      batch.copyTiles(1, out, 0);
+      int filled = 0;
+      for (byte exponent : out) {
+         if (exponent != 0)
+            filled++;
+      }
+      assertEquals(1, filled);
+
+      assertThrows(IndexOutOfBoundsException.class, () -> batch.getScore(2));
+      assertThrows(IllegalArgumentException.class, () -> batch.step(new Direction[1], null, null, null));
+   }
+}
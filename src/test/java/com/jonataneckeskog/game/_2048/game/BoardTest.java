@@ -3,6 +3,9 @@ package com.jonataneckeskog.game._2048.game;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.HashSet;
+import java.util.Set;
+
 class BoardTest {
 
    @Test
@@ -158,4 +161,226 @@ class BoardTest {
 
       assertFalse(updated2, "Should return false because the board is full with no legal moves");
    }
-}
\ No newline at end of file
+
+   @Test
+   void testEmptyCellsTracking() {
+      Board board = new Board(6);
+      char[] directions = { 'U', 'R', 'D', 'L' };
+
+      for (int i = 0; i < 2000 && !board.isGameOver(); i++) {
+         board.update(directions[i % directions.length]);
+
+         int[] emptyCount = { 0 };
+         board.forEachExponent((row, column, exponent) -> {
+            if (exponent == 0)
+               emptyCount[0]++;
+            assertEquals(board.getCell(row, column).getValue(), exponent == 0 ? 0 : 1 << exponent);
+         });
+         assertEquals(emptyCount[0], board.getNumberOfEmptyCells());
+      }
+   }
+
+   @Test
+   void testScoreAndCanMove() {
+      Board board = Board.buildFromString("1,1,2,2,0,0,0,0,0,0,0,0,0,0,0,0");
+
+      assertFalse(board.canMove(Direction.UP));
+      assertTrue(board.canMove(Direction.LEFT));
+      assertTrue(board.canMove(Direction.DOWN));
+
+      Board copy = new Board(4);
+      copy.copyFrom(board);
+      assertTrue(copy.move(Direction.LEFT));
+      assertEquals(4 + 8, copy.getScore());
+      assertEquals(3, copy.getMaxExponent());
+      assertEquals(Board.buildFromString("2,3,0,0,0,0,0,0,0,0,0,0,0,0,0,0"), copy);
+      assertEquals(0, board.getScore(), "Copies shouldn't share state");
+   }
+
+   @Test
+   void testSeededSpawns() {
+      char[] directions = { 'U', 'R', 'D', 'L', 'L', 'D' };
+      Board board1 = new Board(5, SpawnSource.seeded(42));
+      Board board2 = new Board(5, SpawnSource.seeded(42));
+
+      for (int i = 0; i < 200; i++) {
+         board1.update(directions[i % directions.length]);
+         board2.update(directions[i % directions.length]);
+      }
+      assertEquals(board1, board2, "Boards with the same seed and moves should be identical");
+      assertEquals(board1.getScore(), board2.getScore());
+
+      BitBoard bitBoard = new BitBoard(SpawnSource.seeded(99));
+      Board board4 = new Board(4, SpawnSource.seeded(99));
+      for (int i = 0; i < 200 && !bitBoard.isGameOver(); i++) {
+         bitBoard.update(directions[i % directions.length]);
+         board4.update(directions[i % directions.length]);
+         assertEquals(board4, bitBoard.toBoard(), "Both engines should spawn the same tiles for the same seed");
+      }
+   }
+
+   @Test
+   void testSelectBit() {
+      long word = (1L << 2) | (1L << 4) | (1L << 60) | (1L << 61) | (1L << 63);
+      assertEquals(2, Board.selectBit(word, 0));
+      assertEquals(4, Board.selectBit(word, 1));
+      assertEquals(60, Board.selectBit(word, 2));
+      assertEquals(61, Board.selectBit(word, 3));
+      assertEquals(63, Board.selectBit(word, 4));
+      assertEquals(63, Board.selectBit(-1L, 63));
+   }
+
+   @Test
+   void testGameOverTracking() {
+      Direction[] directions = Direction.values();
+      for (int sidelength = 2; sidelength <= 5; sidelength++) {
+         Board board = new Board(sidelength, SpawnSource.seeded(sidelength));
+         for (int i = 0; i < 5000 && !board.isGameOver(); i++) {
+            board.update(directions[(i * 7 + i / 3) % directions.length]);
+
+            boolean canMove = false;
+            for (Direction direction : directions) {
+               canMove |= board.canMove(direction);
+            }
+            assertEquals(!canMove, board.isGameOver());
+         }
+         assertTrue(board.isGameOver(), "Small boards should fill up quickly");
+      }
+
+      Board board = Board.buildFromString("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16");
+      assertTrue(board.isGameOver());
+      board.setCell(new Cell(1 << 15), new BoardPosition(3, 3));
+      assertFalse(board.isGameOver(), "Writing a cell should update the mergeable pairs");
+   }
+
+   @Test
+   void testHashingAndKeys() {
+      Board board = new Board(4, SpawnSource.seeded(3));
+      Board large = new Board(6, SpawnSource.seeded(3));
+      Set<BoardKey> keys = new HashSet<>();
+      char[] directions = { 'U', 'L', 'D', 'R' };
+
+      for (int i = 0; i < 100; i++) {
+         board.update(directions[i % 4]);
+         large.update(directions[i % 4]);
+
+         Board rebuilt = Board.buildFromString(board.toString().trim().replaceAll("\\s+", ","));
+         assertEquals(rebuilt.getZobristHash(), board.getZobristHash(), "Hashes should only depend on the tiles");
+         assertEquals(rebuilt.hashCode(), board.hashCode());
+         assertEquals(rebuilt.key(), board.key());
+         assertTrue(board.key().isPacked());
+         assertEquals(BitBoard.fromBoard(board).getBits(), board.key().getPacked());
+
+         BoardKey largeKey = large.key();
+         assertFalse(largeKey.isPacked());
+         assertEquals(large, largeKey.toBoard(SpawnSource.threadLocal()));
+         keys.add(largeKey);
+         assertTrue(keys.contains(large.key()));
+      }
+
+      assertEquals(0, Board.empty(5, SpawnSource.threadLocal()).getZobristHash());
+      assertNotEquals(Board.buildFromString("1,0,0,0").key(), Board.buildFromString("0,1,0,0").key());
+   }
+
+   @Test
+   void testChangeEvents() {
+      Board board = new Board(5, SpawnSource.seeded(5));
+      Board previous = Board.empty(5, SpawnSource.seeded(0));
+      Set<Integer> reported = new HashSet<>();
+      board.addListener(new BoardListener() {
+         @Override
+         public void cellsChanged(Board board, int[] indices, int count) {
+            for (int i = 0; i < count; i++) {
+               assertTrue(reported.add(indices[i]), "Each cell should be reported once per move");
+            }
+         }
+      });
+
+      Direction[] directions = Direction.values();
+      for (int i = 0; i < 300 && !board.isGameOver(); i++) {
+         previous.copyFrom(board);
+         reported.clear();
+         board.move(directions[(i * 5 + i / 4) % directions.length]);
+
+         Set<Integer> changed = new HashSet<>();
+         for (int index = 0; index < 25; index++) {
+            if (previous.getExponent(index / 5, index % 5) != board.getExponent(index / 5, index % 5))
+               changed.add(index);
+         }
+         assertEquals(changed, reported);
+         board.fillRandomEmptyCell();
+      }
+   }
+
+   @Test
+   void testAfterstates() {
+      Direction[] directions = Direction.values();
+      for (int sidelength = 2; sidelength <= 6; sidelength++) {
+         Board board = new Board(sidelength, SpawnSource.seeded(sidelength));
+         Board scratch = new Board(sidelength);
+         int cells = sidelength * sidelength;
+         byte[] afterstates = new byte[directions.length * cells];
+         long[] rewards = new long[directions.length];
+
+         for (int move = 0; move < 300 && !board.isGameOver(); move++) {
+            int legal = board.afterstates(afterstates, rewards);
+            for (Direction direction : directions) {
+               scratch.copyFrom(board);
+               boolean moved = scratch.move(direction);
+               int d = direction.ordinal();
+               assertEquals(moved, (legal & (1 << d)) != 0, "Legality of " + direction + " on " + board);
+               assertEquals(scratch.getScore() - board.getScore(), rewards[d], "Reward of " + direction);
+               for (int i = 0; i < cells; i++) {
+                  assertEquals(scratch.getExponent(i / sidelength, i % sidelength), afterstates[d * cells + i],
+                        "Cell " + i + " after " + direction + " on " + board);
+               }
+            }
+            board.update(directions[Integer.numberOfTrailingZeros(legal)]);
+         }
+      }
+
+      assertThrows(IllegalArgumentException.class, () -> new Board(4).afterstates(new byte[16], null));
+   }
+
+   @Test
+   void testSnapshots() {
+      Board board = new Board(5, SpawnSource.seeded(3));
+      for (int i = 0; i < 20; i++) {
+         board.update(Direction.values()[i % 4]);
+      }
+      BoardSnapshot snapshot = board.snapshot();
+      Board copy = Board.empty(5, SpawnSource.seeded(3));
+      copy.copyFrom(board);
+
+      int[] changed = { 0 };
+      board.addListener(new BoardListener() {
+         @Override
+         public void cellsChanged(Board changedBoard, int[] indices, int count) {
+            changed[0] += count;
+         }
+      });
+      for (int i = 0; i < 20 && !board.isGameOver(); i++) {
+         board.update(Direction.values()[i % 4]);
+      }
+      changed[0] = 0;
+      int differing = 0;
+      for (int row = 0; row < 5; row++) {
+         for (int column = 0; column < 5; column++) {
+            if (board.getExponent(row, column) != snapshot.getExponent(row, column))
+               differing++;
+         }
+      }
+
+      board.restore(snapshot);
+      assertEquals(copy, board);
+      assertEquals(copy.getScore(), board.getScore());
+      assertEquals(copy.getZobristHash(), board.getZobristHash());
+      assertEquals(copy.getNumberOfEmptyCells(), board.getNumberOfEmptyCells());
+      assertEquals(copy.isGameOver(), board.isGameOver());
+      assertEquals(copy.key(), snapshot.key());
+      assertEquals(differing, changed[0], "Listeners should hear about every cell the restore changed");
+      assertEquals(copy.getScore(), snapshot.getScore());
+
+      assertThrows(IllegalArgumentException.class, () -> new Board(4).restore(snapshot));
+   }
+}
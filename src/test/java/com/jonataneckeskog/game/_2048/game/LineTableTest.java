@@ -0,0 +1,104 @@
+package com.jonataneckeskog.game._2048.game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.Random;
+
+class LineTableTest {
+
+   @TempDir
+   Path directory;
+
+   @Test
+   void testMatchesSlideLine() throws IOException {
+      LineTable[] tables = LineTable.load(directory.resolve("lines.bin"));
+      Random random = new Random(6);
+      for (int sidelength = 2; sidelength <= LineTable.MAX_SIDELENGTH; sidelength++) {
+         // Every line up to 4 cells, a sample of the longer ones
+         int lines = 1 << (4 * sidelength);
+         int checks = Math.min(lines, 1 << 16);
+         for (int i = 0; i < checks; i++) {
+            int packed = checks == lines ? i : random.nextInt(lines);
+            byte[] tiles = new byte[sidelength];
+            for (int cell = 0; cell < sidelength; cell++) {
+               tiles[cell] = (byte) ((packed >>> (4 * cell)) & 0xF);
+            }
+            byte[] expected = new byte[sidelength];
+            long reward = Board.slideLine(tiles, 0, 1, sidelength, expected);
+
+            int entry = tables[sidelength].lookup(tiles, 0, 1);
+            boolean mergesTopTiles = false;
+            for (byte exponent : expected) {
+               mergesTopTiles |= exponent > 15;
+            }
+            if (mergesTopTiles) {
+               assertEquals(LineTable.UNTABLED, entry, "Merging two 32768 tiles doesn't fit in a nibble");
+               continue;
+            }
+
+            byte[] moved = new byte[sidelength];
+            tables[sidelength].decode(entry, moved);
+            assertArrayEquals(expected, moved, "Line " + Integer.toHexString(packed));
+            assertEquals(reward, LineTable.reward(entry), "Reward of line " + Integer.toHexString(packed));
+            assertEquals(!Arrays.equals(tiles, expected), LineTable.moved(entry));
+         }
+      }
+   }
+
+   @Test
+   void testReadsBackwardAndSkipsLargeExponents() throws IOException {
+      LineTable table = LineTable.load(directory.resolve("lines.bin"))[4];
+      byte[] tiles = { 0, 1, 1, 3, 2, 2, 2, 2 };
+      // Cells 7, 5, 3, 1 in that order hold 2, 2, 3, 1
+      int entry = table.lookup(tiles, 7, -2);
+      byte[] moved = new byte[4];
+      table.decode(entry, moved);
+      assertArrayEquals(new byte[] { 3, 3, 1, 0 }, moved);
+      assertEquals(8, LineTable.reward(entry));
+
+      tiles[3] = 16;
+      assertEquals(LineTable.UNTABLED, table.lookup(tiles, 7, -2));
+   }
+
+   @Test
+   void testReusesTheFile() throws IOException {
+      Path path = directory.resolve("lines.bin");
+      LineTable.load(path);
+      FileTime written = FileTime.fromMillis(0);
+      Files.setLastModifiedTime(path, written);
+      LineTable.load(path);
+      assertEquals(written, Files.getLastModifiedTime(path), "An existing table shouldn't be generated again");
+
+      Files.write(path, new byte[16]);
+      assertThrows(IOException.class, () -> LineTable.load(path));
+   }
+
+   @Test
+   void testOtherUsersCanReadTheFile() throws IOException {
+      Path path = directory.resolve("lines.bin");
+      assumeTrue(path.getFileSystem().supportedFileAttributeViews().contains("posix"));
+      LineTable.load(path);
+      assertTrue(Files.getPosixFilePermissions(path).contains(PosixFilePermission.OTHERS_READ));
+   }
+
+   // Only in the surefire execution that turns the tables on for the whole suite
+   @Test
+   @EnabledIfSystemProperty(named = LineTable.PATH_PROPERTY, matches = ".+")
+   void testEnabledByProperty() {
+      for (int sidelength = 2; sidelength <= LineTable.MAX_SIDELENGTH; sidelength++) {
+         assertNotNull(LineTable.forSidelength(sidelength), "Boards should slide lines through the tables");
+      }
+      assertNull(LineTable.forSidelength(LineTable.MAX_SIDELENGTH + 1));
+   }
+
+}
@@ -0,0 +1,48 @@
+package com.jonataneckeskog.game._2048.game;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+class MoveKernelTest {
+
+   @Test
+   void testKernelsMatchBoard() {
+      Random random = new Random(16);
+      MoveKernel[] kernels = { MoveKernel.scalar(), MoveKernel.best() };
+
+      for (int sidelength : new int[] { 2, 3, 4, 7, 8, 15, 16, 17, 32, 33 }) {
+         for (int round = 0; round < 20; round++) {
+            byte[] tiles = new byte[sidelength * sidelength];
+            int maxExponent = 1 + random.nextInt(6);
+            for (int i = 0; i < tiles.length; i++) {
+               if (random.nextInt(10) < 6)
+                  tiles[i] = (byte) (1 + random.nextInt(maxExponent));
+            }
+
+            for (Direction direction : Direction.values()) {
+               // From KERNEL_MIN_SIDELENGTH up Board may use the vector kernel itself, the scalar one still cross-checks it
+               Board board = boardOf(tiles, sidelength);
+               board.move(direction);
+
+               for (MoveKernel kernel : kernels) {
+                  byte[] out = new byte[tiles.length];
+                  long reward = kernel.move(tiles.clone(), sidelength, direction, out);
+                  assertEquals(board, boardOf(out, sidelength),
+                        kernel.getClass().getSimpleName() + " moving " + direction + " on " + sidelength);
+                  assertEquals(board.getScore(), reward);
+               }
+            }
+         }
+      }
+   }
+
+   private static Board boardOf(byte[] tiles, int sidelength) {
+      Board board = Board.empty(sidelength, SpawnSource.seeded(0));
+      for (int i = 0; i < tiles.length; i++) {
+         board.setExponent(i / sidelength, i % sidelength, tiles[i]);
+      }
+      return board;
+   }
+}
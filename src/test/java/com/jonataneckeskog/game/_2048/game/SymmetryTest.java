@@ -0,0 +1,58 @@
+package com.jonataneckeskog.game._2048.game;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+class SymmetryTest {
+
+   @Test
+   void testTransforms() {
+      long board = BitBoard.buildFromString("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,1").getBits();
+
+      assertEquals(BitBoard.buildFromString("4,3,2,1,8,7,6,5,12,11,10,9,1,15,14,13").getBits(),
+            Symmetry.apply(board, 1));
+      assertEquals(BitBoard.buildFromString("13,14,15,1,9,10,11,12,5,6,7,8,1,2,3,4").getBits(),
+            Symmetry.apply(board, 2));
+      assertEquals(BitBoard.transpose(board), Symmetry.apply(board, 4));
+
+      Set<Long> variants = new HashSet<>();
+      for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+         variants.add(Symmetry.apply(board, t));
+      }
+      assertEquals(Symmetry.TRANSFORMS, variants.size(), "Every transform of an asymmetric board should differ");
+   }
+
+   @Test
+   void testMovesFollowTransforms() {
+      Random random = new Random(8);
+      for (int i = 0; i < 200; i++) {
+         long board = randomBoard(random);
+         long canonical = Symmetry.canonical(board);
+         int canonicalTransform = Symmetry.canonicalTransform(board);
+         assertEquals(canonical, Symmetry.apply(board, canonicalTransform));
+
+         for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            long transformed = Symmetry.apply(board, t);
+            assertEquals(canonical, Symmetry.canonical(transformed), "Symmetric boards should share a canonical form");
+
+            for (Direction direction : Direction.values()) {
+               Direction mapped = Symmetry.map(direction, t);
+               assertEquals(direction, Symmetry.unmap(mapped, t));
+               assertEquals(Symmetry.apply(BitBoard.move(board, direction), t), BitBoard.move(transformed, mapped));
+            }
+         }
+      }
+   }
+
+   private static long randomBoard(Random random) {
+      long board = 0L;
+      for (int i = 0; i < 16; i++) {
+         board |= (long) random.nextInt(6) << (4 * i);
+      }
+      return board;
+   }
+}
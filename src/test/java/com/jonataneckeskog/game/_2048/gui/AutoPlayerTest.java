@@ -0,0 +1,63 @@
+package com.jonataneckeskog.game._2048.gui;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import com.jonataneckeskog.game._2048.ai.RandomPolicy;
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+class AutoPlayerTest {
+
+   @Test
+   void testDeliversFinalFrame() throws InterruptedException {
+      Board board = new Board(4, SpawnSource.seeded(1));
+      AutoPlayer player = new AutoPlayer(board, new RandomPolicy(new SplittableRandom(1)));
+      player.start();
+
+      AutoPlayer.Frame last = null;
+      long previousMoves = -1;
+      long deadline = System.nanoTime() + 10_000_000_000L;
+      while ((last == null || !last.gameOver()) && System.nanoTime() < deadline) {
+         Thread.sleep(1);
+         AutoPlayer.Frame frame = player.poll();
+         if (frame != null) {
+            assertTrue(frame.moves() > previousMoves || frame.gameOver(), "Frames should arrive in order");
+            previousMoves = frame.moves();
+            last = frame;
+         }
+      }
+
+      assertNotNull(last);
+      assertTrue(last.gameOver(), "The engine should finish a random game");
+      assertNull(player.poll(), "Nothing should follow the last frame");
+      assertTrue(board.isGameOver());
+      assertEquals(board.key(), last.board());
+      assertEquals(board.getScore(), last.score());
+   }
+
+   @Test
+   void testReportsPolicyFailure() throws InterruptedException {
+      Board board = new Board(5, SpawnSource.seeded(1));
+      AutoPlayer player = new AutoPlayer(board, b -> {
+         throw new IllegalStateException("no move for you");
+      });
+      player.start();
+
+      AutoPlayer.Frame last = null;
+      long deadline = System.nanoTime() + 10_000_000_000L;
+      while ((last == null || !last.gameOver()) && System.nanoTime() < deadline) {
+         Thread.sleep(1);
+         AutoPlayer.Frame frame = player.poll();
+         if (frame != null)
+            last = frame;
+      }
+
+      assertNotNull(last);
+      assertTrue(last.gameOver(), "A failing policy should still end with a last frame");
+      assertEquals("no move for you", last.error());
+      assertEquals(0, last.moves());
+   }
+}
@@ -0,0 +1,54 @@
+package com.jonataneckeskog.game._2048.gui;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.BoardKey;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+class GameControllerTest {
+
+   @Test
+   void testUndoRedo() {
+      Board board = new Board(4, SpawnSource.seeded(7));
+      BoardGUI boardGUI = new BoardGUI(board);
+      GameController controller = new GameController(board, boardGUI);
+      assertFalse(controller.undo(), "Nothing to undo before the first move");
+
+      BoardKey start = board.key();
+      Direction[] directions = Direction.values();
+      int played = 0;
+      for (int i = 0; played < 10; i++) {
+         if (controller.play(directions[i % directions.length]))
+            played++;
+      }
+      BoardKey end = board.key();
+      long endScore = board.getScore();
+
+      for (int i = 0; i < played; i++) {
+         assertTrue(controller.undo());
+      }
+      assertEquals(start, board.key());
+      assertEquals(0, board.getScore());
+      assertFalse(controller.undo());
+      for (int row = 0; row < 4; row++) {
+         for (int column = 0; column < 4; column++) {
+            assertEquals(board.getExponent(row, column), boardGUI.getCellExponent(row, column),
+                  "The GUI should follow the restored board");
+         }
+      }
+
+      while (controller.redo()) {
+      }
+      assertEquals(end, board.key(), "Redo should replay the same spawns");
+      assertEquals(endScore, board.getScore());
+
+      assertTrue(controller.undo());
+      assertTrue(controller.play(Direction.UP) || controller.play(Direction.DOWN) || controller.play(Direction.LEFT)
+            || controller.play(Direction.RIGHT));
+      assertFalse(controller.canRedo(), "A new move should drop the redo history");
+   }
+
+}
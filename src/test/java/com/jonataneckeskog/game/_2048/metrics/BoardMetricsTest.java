@@ -0,0 +1,50 @@
+package com.jonataneckeskog.game._2048.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+// Only in the surefire execution that turns metrics on
+@EnabledIfSystemProperty(named = "game2048.metrics", matches = "true")
+class BoardMetricsTest {
+
+   @Test
+   void testCountsUpdates() {
+      BoardMetrics metrics = BoardMetrics.get();
+      BoardMetrics.recorder().flush();
+      metrics.reset();
+      Board board = new Board(4, SpawnSource.seeded(1));
+      for (int i = 0; i < BoardMetrics.SAMPLE_INTERVAL; i++) {
+         board.update(Direction.values()[i % 4]);
+      }
+      BoardMetrics.recorder().flush();
+
+      assertEquals(BoardMetrics.SAMPLE_INTERVAL, metrics.getCounters().get("update"));
+      assertEquals(BoardMetrics.SAMPLE_INTERVAL, metrics.getCounters().get("move"));
+      assertEquals(1, metrics.getLatencies().get("update.samples"));
+   }
+
+   @Test
+   void testUpdatesAllocateNothing() {
+      SplittableRandom random = new SplittableRandom(2048);
+      SpawnSource spawnSource = SpawnSource.of(random);
+      Board board = new Board(4, spawnSource);
+      BoardMetrics metrics = BoardMetrics.get();
+      BoardMetrics.recorder().flush();
+      metrics.reset();
+      for (int i = 0; i < 200 * BoardMetrics.SAMPLE_INTERVAL; i++) {
+         if (!board.update(Direction.values()[random.nextInt(4)]))
+            board = new Board(4, spawnSource);
+      }
+
+      // Sampled update windows include the sampled move, so this reads 0 only if neither allocates
+      assertEquals(0.0, metrics.getAllocatedBytesPerUpdate());
+   }
+
+}
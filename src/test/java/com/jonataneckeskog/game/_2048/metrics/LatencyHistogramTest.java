@@ -0,0 +1,48 @@
+package com.jonataneckeskog.game._2048.metrics;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+class LatencyHistogramTest {
+
+   @Test
+   void testBuckets() {
+      for (long value = 0; value < 16; value++) {
+         assertEquals(value, LatencyHistogram.lowestValue(LatencyHistogram.bucket(value)),
+               "Values below 16 should get a bucket each");
+      }
+
+      Random random = new Random(2048);
+      for (int i = 0; i < 10000; i++) {
+         long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+         long lowest = LatencyHistogram.lowestValue(LatencyHistogram.bucket(value));
+         assertTrue(lowest <= value, "Bucket should start at or below " + value);
+         assertTrue(value - lowest <= value / 16, "Bucket should be within 1/16 of " + value);
+      }
+      assertEquals(31L << 58, LatencyHistogram.lowestValue(LatencyHistogram.bucket(Long.MAX_VALUE)));
+   }
+
+   @Test
+   void testQuantiles() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      assertEquals(0, histogram.getValueAtQuantile(0.5), "An empty histogram should report 0");
+
+      for (long value = 1; value <= 1000; value++) {
+         histogram.record(value);
+      }
+      assertEquals(1000, histogram.getCount());
+      assertEquals(1000, histogram.getMax());
+      assertEquals(1, histogram.getValueAtQuantile(0));
+      assertEquals(500, histogram.getValueAtQuantile(0.5), 500 / 16);
+      assertEquals(990, histogram.getValueAtQuantile(0.99), 990 / 16);
+      assertEquals(1000, histogram.getValueAtQuantile(1), 1000 / 16);
+      assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtQuantile(1.5));
+
+      histogram.reset();
+      assertEquals(0, histogram.getCount());
+      assertEquals(0, histogram.getMax());
+   }
+
+}
@@ -0,0 +1,87 @@
+package com.jonataneckeskog.game._2048.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.jonataneckeskog.game._2048.ai.RandomPolicy;
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+class GameRecordTest {
+
+   @TempDir
+   Path directory;
+
+   @Test
+   void testRoundTrip() throws IOException {
+      roundTrip(4, 20);
+   }
+
+   @Test
+   void testTwoByteSpawns() throws IOException {
+      roundTrip(9, 2);
+   }
+
+   @Test
+   void testInvalidFile() throws IOException {
+      Path path = directory.resolve("invalid.rec");
+      Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7 });
+      assertThrows(IOException.class, () -> new GameRecordReader(path));
+   }
+
+   private void roundTrip(int sidelength, int games) throws IOException {
+      Path path = directory.resolve("games.rec");
+      RandomPolicy policy = new RandomPolicy(new SplittableRandom(1));
+      List<Board> finalBoards = new ArrayList<>();
+      List<Board> halfwayBoards = new ArrayList<>();
+      List<Integer> moveCounts = new ArrayList<>();
+
+      try (GameRecordWriter writer = new GameRecordWriter(path, sidelength)) {
+         for (int game = 0; game < games; game++) {
+            Board board = new Board(sidelength, SpawnSource.seeded(game));
+            Board halfway = null;
+            writer.beginGame(board, game);
+
+            int moves = 0;
+            Direction direction;
+            while (moves < 3000 && (direction = policy.chooseMove(board)) != null) {
+               board.update(direction);
+               moves++;
+               if (moves == 10) {
+                  halfway = Board.empty(sidelength, SpawnSource.threadLocal());
+                  halfway.copyFrom(board);
+               }
+            }
+
+            writer.endGame();
+            finalBoards.add(board);
+            halfwayBoards.add(halfway);
+            moveCounts.add(moves);
+         }
+      }
+
+      try (GameRecordReader reader = new GameRecordReader(path)) {
+         assertEquals(sidelength, reader.getSidelength());
+         int game = 0;
+         for (GameRecord record : reader) {
+            assertEquals(game, record.getSeed());
+            assertEquals((int) moveCounts.get(game), record.getMoveCount());
+            assertEquals(finalBoards.get(game), record.finalBoard());
+            assertEquals(finalBoards.get(game).getScore(), record.finalBoard().getScore());
+            assertEquals(halfwayBoards.get(game), record.boardAfter(10));
+            assertNotNull(record.getMove(record.getMoveCount() - 1));
+            game++;
+         }
+         assertEquals(games, game);
+      }
+   }
+}
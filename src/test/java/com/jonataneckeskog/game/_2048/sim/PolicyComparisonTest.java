@@ -0,0 +1,98 @@
+package com.jonataneckeskog.game._2048.sim;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Random;
+
+import com.jonataneckeskog.game._2048.ai.Heuristic;
+import com.jonataneckeskog.game._2048.game.BitBoard;
+import com.jonataneckeskog.game._2048.sim.PolicyComparison.PolicySpec;
+
+class PolicyComparisonTest {
+
+   @Test
+   void testSequentialTestDecides() {
+      Random random = new Random(25);
+      SequentialTest better = new SequentialTest(0.05, 0.05, 0.1);
+      SequentialTest same = new SequentialTest(0.05, 0.05, 0.1);
+      for (int i = 0; i < 100000 && (better.decision() == SequentialTest.Decision.CONTINUE
+            || same.decision() == SequentialTest.Decision.CONTINUE); i++) {
+         long a = 1000 + Math.round(200 * random.nextGaussian());
+         if (better.decision() == SequentialTest.Decision.CONTINUE)
+            better.add(a, a + 100 + Math.round(300 * random.nextGaussian()));
+         if (same.decision() == SequentialTest.Decision.CONTINUE)
+            same.add(a, a + Math.round(300 * random.nextGaussian()));
+      }
+      assertEquals(SequentialTest.Decision.ACCEPT_H1, better.decision(), better.toString());
+      assertEquals(SequentialTest.Decision.ACCEPT_H0, same.decision(), same.toString());
+      assertTrue(better.getPairs() < 1000, "A 10% gain should show within a few hundred pairs: " + better);
+   }
+
+   @Test
+   void testIdenticalPoliciesStopAtOnce() throws IOException, InterruptedException {
+      PolicyComparison comparison = new PolicyComparison(new PolicySpec("greedy", 0), new PolicySpec("greedy", 0), 4,
+            2, 1);
+      SequentialTest test = new SequentialTest(0.05, 0.05, 0.02);
+      comparison.run(test, 1000, new SimulationSummary(), new SimulationSummary(), null);
+      assertEquals(SequentialTest.Decision.ACCEPT_H0, test.decision());
+      assertEquals(SequentialTest.MIN_PAIRS, test.getPairs(), "Equal spawns give equal games for equal policies");
+      assertEquals(0, test.getMeanDifference());
+   }
+
+   @Test
+   void testReproducibleAcrossThreadCounts() throws IOException, InterruptedException {
+      String[] reports = new String[2];
+      for (int threads = 1; threads <= 2; threads++) {
+         PolicyComparison comparison = new PolicyComparison(PolicySpec.parse("random", 0),
+               PolicySpec.parse("greedy", 0), 4, threads, 2048);
+         SequentialTest test = new SequentialTest(0.05, 0.05, 0.05);
+         SimulationSummary summaryA = new SimulationSummary();
+         SimulationSummary summaryB = new SimulationSummary();
+         ByteArrayOutputStream csv = new ByteArrayOutputStream();
+         PrintStream pairs = new PrintStream(csv);
+         comparison.run(test, 5000, summaryA, summaryB, pairs);
+
+         assertEquals(SequentialTest.Decision.ACCEPT_H1, test.decision(), "Greedy should beat random: " + test);
+         assertEquals(test.getPairs(), summaryA.getGames());
+         assertEquals(test.getPairs() + 1, csv.toString().lines().count(), "One CSV line per counted pair");
+         reports[threads - 1] = test + "\n" + csv;
+      }
+      assertEquals(reports[0], reports[1], "The stopping point and every pair should only depend on the seed");
+   }
+
+   @Test
+   void testParsesPolicies() {
+      assertEquals(new PolicySpec("expectimax", 3), PolicySpec.parse("expectimax:3", 2));
+      assertEquals(new PolicySpec("greedy", 2), PolicySpec.parse("greedy", 2));
+      assertThrows(IllegalArgumentException.class,
+            () -> new PolicyComparison(PolicySpec.parse("nope", 2), PolicySpec.parse("greedy", 2), 4, 1, 0));
+      assertThrows(IllegalArgumentException.class,
+            () -> new PolicyComparison(PolicySpec.parse("expectimax", 2), PolicySpec.parse("greedy", 2), 5, 1, 0));
+      assertThrows(IllegalArgumentException.class, () -> new PolicyComparison(
+            PolicySpec.parse("greedy", 2).withEvaluator(new Heuristic()), PolicySpec.parse("greedy", 2), 4, 1, 0));
+   }
+
+   @Test
+   void testComparesEvaluators() throws IOException, InterruptedException {
+      PolicySpec heuristic = PolicySpec.parse("expectimax:1", 2);
+      // The default heuristic passed in explicitly plays exactly the same games
+      PolicyComparison same = new PolicyComparison(heuristic, heuristic.withEvaluator(new Heuristic()), 4, 2, 3);
+      SequentialTest test = new SequentialTest(0.05, 0.05, 0.05);
+      same.run(test, 1000, new SimulationSummary(), new SimulationSummary(), null);
+      assertEquals(SequentialTest.Decision.ACCEPT_H0, test.decision());
+      assertEquals(0, test.getMeanDifference());
+
+      // Counting empty cells alone is a far weaker evaluator, and only b uses it
+      PolicyComparison weaker = new PolicyComparison(heuristic,
+            heuristic.withEvaluator(board -> BitBoard.countEmpty(board)), 4, 2, 3);
+      test = new SequentialTest(0.05, 0.05, 0.05);
+      weaker.run(test, 1000, new SimulationSummary(), new SimulationSummary(), null);
+      assertEquals(SequentialTest.Decision.ACCEPT_H0, test.decision());
+      assertTrue(test.getMeanDifference() < 0, "The weaker evaluator should score less: " + test);
+   }
+
+}
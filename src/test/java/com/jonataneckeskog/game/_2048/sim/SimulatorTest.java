@@ -0,0 +1,41 @@
+package com.jonataneckeskog.game._2048.sim;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatorTest {
+
+   @Test
+   void testRejectsPoliciesUpFront() {
+      assertThrows(IllegalArgumentException.class, () -> new Simulator(10, "minimax", 2, 4, 1, false, 1));
+      IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> new Simulator(10, "expectimax", 2, 5, 1, false, 1));
+      assertTrue(e.getMessage().contains("4x4"), e.getMessage());
+   }
+
+   @Test
+   void testPlaysMonteCarloOffFourByFour() throws InterruptedException {
+      SimulationSummary summary = new Simulator(2, "montecarlo", 0, 3, 1, false, 5).run(null);
+      assertEquals(2, summary.getGames());
+      assertTrue(summary.getMeanScore() > 0);
+   }
+
+   @Test
+   void testPlaysSeededGames() throws InterruptedException {
+      SimulationSummary first = new Simulator(20, "greedy", 0, 5, 2, false, 9).run(null);
+      SimulationSummary second = new Simulator(20, "greedy", 0, 5, 1, false, 9).run(null);
+      assertEquals(20, first.getGames());
+      assertEquals(first.getMeanScore(), second.getMeanScore(), "Game seeds don't depend on the thread count");
+   }
+
+   @Test
+   void testCountsTilesPastIntRange() {
+      SimulationSummary summary = new SimulationSummary();
+      summary.add(new GameResult(0, 0, 1L << 40, 1, 1, 1));
+      summary.add(new GameResult(1, 0, 1L << 31, 1, 1, 1));
+      assertEquals(0.5, summary.getReachRate(1L << 40));
+      assertEquals(1.0, summary.getReachRate(1L << 31));
+      assertTrue(summary.getReachRate(1L << 41) == 0);
+   }
+
+}
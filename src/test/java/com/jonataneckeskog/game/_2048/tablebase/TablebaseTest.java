@@ -0,0 +1,149 @@
+package com.jonataneckeskog.game._2048.tablebase;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.jonataneckeskog.game._2048.game.Board;
+import com.jonataneckeskog.game._2048.game.BoardKey;
+import com.jonataneckeskog.game._2048.game.Direction;
+import com.jonataneckeskog.game._2048.game.SpawnSource;
+
+class TablebaseTest {
+
+   @TempDir
+   Path directory;
+
+   @Test
+   void testMatchesExhaustiveSearch() throws IOException {
+      for (int target = 3; target <= 6; target++) {
+         Tablebase tablebase = build(2, target);
+         Map<BoardKey, Double> memo = new HashMap<>();
+         Board board = Board.empty(2, SpawnSource.seeded(0));
+         for (int cell = 0; cell < 4; cell++) {
+            for (int exponent = 1; exponent <= 2; exponent++) {
+               board.setExponent(cell / 2, cell % 2, exponent);
+               check(tablebase, board, target, memo);
+               board.setExponent(cell / 2, cell % 2, 0);
+            }
+         }
+         assertTrue(memo.size() > 1, "The search should visit more than the start");
+      }
+   }
+
+   // Compares every reachable position with a plain expectimax over Board, returning its win probability
+   private double check(Tablebase tablebase, Board board, int target, Map<BoardKey, Double> memo) {
+      Double known = memo.get(board.key());
+      if (known != null)
+         return known;
+
+      double best = 0;
+      Direction bestMove = null;
+      for (Direction direction : Direction.values()) {
+         Board afterstate = copy(board);
+         if (!afterstate.move(direction))
+            continue;
+         double value;
+         if (afterstate.getMaxExponent() >= target) {
+            value = 1;
+         } else {
+            value = 0;
+            int empty = afterstate.getNumberOfEmptyCells();
+            for (int cell = 0; cell < 4; cell++) {
+               if (afterstate.getExponent(cell / 2, cell % 2) != 0)
+                  continue;
+               for (int exponent = 1; exponent <= 2; exponent++) {
+                  Board spawned = copy(afterstate);
+                  spawned.setExponent(cell / 2, cell % 2, exponent);
+                  double odds = exponent == 1 ? TablebaseBuilder.TWO_PROBABILITY : TablebaseBuilder.FOUR_PROBABILITY;
+                  value += odds / empty * check(tablebase, spawned, target, memo);
+               }
+            }
+         }
+         if (bestMove == null || value > best) {
+            best = value;
+            bestMove = direction;
+         }
+      }
+
+      assertEquals(best, tablebase.winProbability(board), 1e-5, "Win probability of" + board);
+      if (bestMove != null) {
+         Board afterBest = copy(board);
+         afterBest.move(tablebase.bestMove(board));
+         assertNotEquals(board, afterBest, "The best move should be legal on" + board);
+      } else {
+         assertNull(tablebase.bestMove(board), "A lost position has no move");
+      }
+      memo.put(board.key(), best);
+      return best;
+   }
+
+   private static Board copy(Board board) {
+      Board copy = Board.empty(board.getSidelength(), board.getSpawnSource());
+      copy.copyFrom(board);
+      return copy;
+   }
+
+   @Test
+   void testSolvesSmallThreeByThree() throws IOException {
+      Tablebase tablebase = build(3, 6);
+      assertEquals(3, tablebase.getSidelength());
+      assertEquals(6, tablebase.getTarget());
+      assertTrue(tablebase.size() > 1000, "3x3 should have many positions, got " + tablebase.size());
+
+      Board start = Board.buildFromString("1,0,0,0,0,0,0,0,0");
+      double probability = tablebase.winProbability(start);
+      assertTrue(probability > 0.9 && probability <= 1, "64 is easy to reach on 3x3, got " + probability);
+      assertNotNull(tablebase.bestMove(start));
+
+      assertEquals(1, tablebase.winProbability(Board.buildFromString("6,0,0,0,0,0,0,0,0")));
+      assertTrue(Double.isNaN(tablebase.winProbability(Board.buildFromString("3,3,3,3,3,3,3,3,3"))),
+            "A board spawns can't reach shouldn't be in the table");
+   }
+
+   @Test
+   void testPolicyPlaysLegalMoves() throws IOException {
+      TablebasePolicy policy = new TablebasePolicy(build(3, 6));
+      Board board = new Board(3, SpawnSource.seeded(64));
+      while (!board.isGameOver()) {
+         Direction move = policy.chooseMove(board);
+         assertNotNull(move);
+         assertTrue(board.canMove(move), "Policy chose the illegal move " + move + " on" + board);
+         board.update(move);
+      }
+      assertTrue(board.getMaxExponent() >= 6, "The policy should reach the target on this seed");
+   }
+
+   @Test
+   void testRejectsOtherFiles() throws IOException {
+      Path path = directory.resolve("garbage.bin");
+      Files.write(path, new byte[64]);
+      assertThrows(IOException.class, () -> Tablebase.open(path));
+
+      Path table = directory.resolve("table.bin");
+      TablebaseBuilder builder = new TablebaseBuilder(2, 4);
+      builder.build();
+      builder.write(table);
+      Files.write(path, Files.readAllBytes(table));
+      Files.write(path, new byte[1], StandardOpenOption.APPEND);
+      assertThrows(IOException.class, () -> Tablebase.open(path));
+   }
+
+   private Tablebase build(int sidelength, int target) throws IOException {
+      TablebaseBuilder builder = new TablebaseBuilder(sidelength, target);
+      builder.build();
+      Path path = directory.resolve("tablebase-" + sidelength + "-" + target + ".bin");
+      builder.write(path);
+      Tablebase tablebase = Tablebase.open(path);
+      assertEquals(builder.size(), tablebase.size());
+      return tablebase;
+   }
+
+}
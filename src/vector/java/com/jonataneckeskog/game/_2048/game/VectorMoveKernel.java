@@ -0,0 +1,108 @@
+package com.jonataneckeskog.game._2048.game;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Columns are contiguous across a row, so a vector holds the same swipe position of many columns and every
+// column is compacted, merged and compacted again at once. Rows are left to the scalar kernel: they are already
+// contiguous there, and transposing them in and out costs as much as the vector passes save.
+// Built by the vector profile and loaded through MoveKernel.best().
+final class VectorMoveKernel implements MoveKernel {
+
+   private static final VectorSpecies<Byte> PREFERRED = ByteVector.SPECIES_PREFERRED;
+
+   @Override
+   public long move(byte[] tiles, int sidelength, Direction direction, byte[] out) {
+      if (direction.isHorizontal())
+         return MoveKernel.scalar().move(tiles, sidelength, direction, out);
+
+      // Row i of out holds the i-th cell of every column in swipe order
+      boolean forward = direction == Direction.DOWN;
+      for (int i = 0; i < sidelength; i++) {
+         int row = forward ? sidelength - 1 - i : i;
+         System.arraycopy(tiles, row * sidelength, out, i * sidelength, sidelength);
+      }
+
+      VectorSpecies<Byte> species = species(sidelength);
+      long reward = 0;
+      for (int lane = 0; lane < sidelength; lane += species.length()) {
+         VectorMask<Byte> lanes = species.indexInRange(lane, sidelength);
+         compact(species, out, sidelength, lane, lanes);
+         reward += merge(species, out, sidelength, lane, lanes);
+         compact(species, out, sidelength, lane, lanes);
+      }
+
+      if (forward)
+         reverseRows(out, sidelength);
+      return reward;
+   }
+
+   @Override
+   public boolean isVectorized() {
+      return true;
+   }
+
+   // The widest species that doesn't leave most lanes idle on smaller boards
+   private static VectorSpecies<Byte> species(int sidelength) {
+      if (sidelength >= PREFERRED.length())
+         return PREFERRED;
+      if (sidelength >= ByteVector.SPECIES_128.length())
+         return ByteVector.SPECIES_128;
+      return ByteVector.SPECIES_64;
+   }
+
+   private static void reverseRows(byte[] grid, int n) {
+      for (int i = 0, j = n - 1; i < j; i++, j--) {
+         for (int column = 0; column < n; column++) {
+            byte value = grid[i * n + column];
+            grid[i * n + column] = grid[j * n + column];
+            grid[j * n + column] = value;
+         }
+      }
+   }
+   // Bubbles holes towards the end of every line; after each sweep one more trailing position is final
+   private static void compact(VectorSpecies<Byte> species, byte[] grid, int n, int lane, VectorMask<Byte> lanes) {
+      boolean shifted = true;
+      for (int end = n - 1; shifted && end > 0; end--) {
+         shifted = false;
+         ByteVector current = ByteVector.fromArray(species, grid, lane, lanes);
+         for (int i = 0; i < end; i++) {
+            ByteVector next = ByteVector.fromArray(species, grid, (i + 1) * n + lane, lanes);
+            VectorMask<Byte> hole = current.compare(VectorOperators.EQ, (byte) 0);
+            if (hole.and(next.compare(VectorOperators.NE, (byte) 0)).anyTrue()) {
+               shifted = true;
+               current = current.blend(next, hole);
+               next = next.blend((byte) 0, hole);
+            }
+            current.intoArray(grid, i * n + lane, lanes);
+            current = next;
+         }
+         current.intoArray(grid, end * n + lane, lanes);
+      }
+   }
+
+   // Merges equal neighbours front to back; a merged cell is left empty so it can't merge again
+   private static long merge(VectorSpecies<Byte> species, byte[] grid, int n, int lane, VectorMask<Byte> lanes) {
+      long reward = 0;
+      ByteVector current = ByteVector.fromArray(species, grid, lane, lanes);
+      for (int i = 0; i < n - 1; i++) {
+         ByteVector next = ByteVector.fromArray(species, grid, (i + 1) * n + lane, lanes);
+         VectorMask<Byte> merged = current.compare(VectorOperators.NE, (byte) 0)
+               .and(current.compare(VectorOperators.EQ, next));
+         if (merged.anyTrue()) {
+            current = current.add((byte) 1, merged);
+            next = next.blend((byte) 0, merged);
+            current.intoArray(grid, i * n + lane, lanes);
+            for (long bits = merged.toLong(); bits != 0; bits &= bits - 1) {
+               reward += 1L << grid[i * n + lane + Long.numberOfTrailingZeros(bits)];
+            }
+            next.intoArray(grid, (i + 1) * n + lane, lanes);
+         }
+         current = next;
+      }
+      return reward;
+   }
+
+}